@@ -0,0 +1,94 @@
+package com.db.analyticsservice.aggregation;
+
+import com.db.analyticsservice.dto.EventTypeStatsDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates patient events per event type. Tumbling windows are aligned to multiples of
+ * {@code analytics.window.tumbling-seconds} since the epoch; the sliding window covers the last
+ * {@code analytics.window.sliding-seconds} up to now. Windows use the Kafka record timestamp,
+ * so replays and consumer lag land in the seconds the events were produced.
+ */
+@Component
+public class EventAggregator {
+    private final ConcurrentHashMap<String, EventCounter> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int retentionSeconds;
+    private final int tumblingSeconds;
+    private final int slidingSeconds;
+
+    public EventAggregator(MeterRegistry meterRegistry,
+                           @Value("${analytics.window.retention-seconds:3600}") int retentionSeconds,
+                           @Value("${analytics.window.tumbling-seconds:60}") int tumblingSeconds,
+                           @Value("${analytics.window.sliding-seconds:60}") int slidingSeconds) {
+        if (tumblingSeconds * 2 > retentionSeconds || slidingSeconds > retentionSeconds) {
+            throw new IllegalArgumentException("analytics.window.retention-seconds must cover two tumbling windows and the sliding window");
+        }
+        this.meterRegistry = meterRegistry;
+        this.retentionSeconds = retentionSeconds;
+        this.tumblingSeconds = tumblingSeconds;
+        this.slidingSeconds = slidingSeconds;
+    }
+
+    public void record(String eventType, long timestampMs) {
+        EventCounter counter = counters.get(eventType);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(eventType, this::newCounter);
+        }
+        counter.record(timestampMs / 1000, 1);
+    }
+
+    public List<EventTypeStatsDTO> stats() {
+        long nowSecond = System.currentTimeMillis() / 1000;
+        return counters.keySet().stream()
+                .sorted(Comparator.naturalOrder())
+                .map(eventType -> stats(eventType, counters.get(eventType), nowSecond))
+                .toList();
+    }
+
+    public Optional<EventTypeStatsDTO> stats(String eventType) {
+        return Optional.ofNullable(counters.get(eventType))
+                .map(counter -> stats(eventType, counter, System.currentTimeMillis() / 1000));
+    }
+
+    private EventTypeStatsDTO stats(String eventType, EventCounter counter, long nowSecond) {
+        long windowStart = nowSecond - Math.floorMod(nowSecond, tumblingSeconds);
+        long slidingCount = counter.count(nowSecond - slidingSeconds + 1, nowSecond);
+
+        EventTypeStatsDTO stats = new EventTypeStatsDTO();
+        stats.setEventType(eventType);
+        stats.setTotal(counter.total());
+        stats.setTumblingWindowSeconds(tumblingSeconds);
+        stats.setCurrentWindowCount(counter.count(windowStart, nowSecond));
+        stats.setPreviousWindowCount(counter.count(windowStart - tumblingSeconds, windowStart - 1));
+        stats.setSlidingWindowSeconds(slidingSeconds);
+        stats.setSlidingWindowCount(slidingCount);
+        stats.setRatePerSecond((double) slidingCount / slidingSeconds);
+        return stats;
+    }
+
+    private EventCounter newCounter(String eventType) {
+        EventCounter counter = new EventCounter(retentionSeconds);
+        FunctionCounter.builder("analytics.events", counter, EventCounter::total)
+                .tag("type", eventType)
+                .register(meterRegistry);
+        Gauge.builder("analytics.events.rate", counter,
+                        c -> {
+                            long nowSecond = System.currentTimeMillis() / 1000;
+                            return (double) c.count(nowSecond - slidingSeconds + 1, nowSecond) / slidingSeconds;
+                        })
+                .tag("type", eventType)
+                .baseUnit("events/s")
+                .register(meterRegistry);
+        return counter;
+    }
+}
@@ -0,0 +1,64 @@
+package com.db.analyticsservice.aggregation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counts for one event type: an all-time total plus a ring of per-second buckets
+ * covering the last {@code retentionSeconds}. Each bucket packs its epoch second into the high
+ * 32 bits and the count into the low 32 bits, so a bucket is claimed for a new second and
+ * incremented with a single CAS and recording never allocates.
+ */
+public class EventCounter {
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final LongAdder total = new LongAdder();
+    private final AtomicLongArray buckets;
+    private final int retentionSeconds;
+
+    public EventCounter(int retentionSeconds) {
+        this.retentionSeconds = retentionSeconds;
+        this.buckets = new AtomicLongArray(retentionSeconds);
+    }
+
+    public void record(long epochSecond, long count) {
+        total.add(count);
+        int index = (int) Math.floorMod(epochSecond, retentionSeconds);
+        while (true) {
+            long bucket = buckets.get(index);
+            long bucketSecond = bucket >>> 32;
+            long next;
+            if (bucketSecond == epochSecond) {
+                next = bucket + count;
+            } else if (bucketSecond < epochSecond) {
+                next = (epochSecond << 32) | count;
+            } else {
+                // older than the retained window, only the total keeps it
+                return;
+            }
+            if (buckets.compareAndSet(index, bucket, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return events recorded with a timestamp in {@code [fromSecond, toSecond]}, limited to the
+     * retained window
+     */
+    public long count(long fromSecond, long toSecond) {
+        long from = Math.max(fromSecond, toSecond - retentionSeconds + 1);
+        long sum = 0;
+        for (long second = from; second <= toSecond; second++) {
+            long bucket = buckets.get((int) Math.floorMod(second, retentionSeconds));
+            if (bucket >>> 32 == second) {
+                sum += bucket & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+
+    public long total() {
+        return total.sum();
+    }
+}
@@ -0,0 +1,78 @@
+package com.db.analyticsservice.controller;
+
+import com.db.analyticsservice.aggregation.EventAggregator;
+import com.db.analyticsservice.dto.EventTypeStatsDTO;
+import com.db.analyticsservice.dto.SketchWindowDTO;
+import com.db.analyticsservice.service.EventHistoryService;
+import com.db.analyticsservice.sketch.SketchStore;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+    private final EventAggregator eventAggregator;
+    private final EventHistoryService eventHistoryService;
+    private final SketchStore sketchStore;
+
+    public AnalyticsController(EventAggregator eventAggregator, EventHistoryService eventHistoryService, SketchStore sketchStore) {
+        this.eventAggregator = eventAggregator;
+        this.eventHistoryService = eventHistoryService;
+        this.sketchStore = sketchStore;
+    }
+
+    @GetMapping("/events")
+    public ResponseEntity<List<EventTypeStatsDTO>> getEventStats() {
+        return ResponseEntity.ok(eventAggregator.stats());
+    }
+
+    @GetMapping("/events/{eventType}")
+    public ResponseEntity<EventTypeStatsDTO> getEventStats(@PathVariable String eventType) {
+        return eventAggregator.stats(eventType)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // /analytics/history?from=2025-01-01T00:00:00Z&to=2025-01-02T00:00:00Z
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Long>> getEventHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return ResponseEntity.ok(eventHistoryService.countByEventType(from, to != null ? to : Instant.now()));
+    }
+
+    @GetMapping("/sketches")
+    public ResponseEntity<List<SketchWindowDTO>> getSketches(@RequestParam(defaultValue = "1") int windows) {
+        return ResponseEntity.ok(sketchStore.windows(windows));
+    }
+
+    @GetMapping("/sketches/summary")
+    public ResponseEntity<SketchWindowDTO> getSketchSummary(@RequestParam(defaultValue = "24") int windows) {
+        return sketchStore.summary(windows)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/sketches/export", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> exportSketches() {
+        return ResponseEntity.ok(sketchStore.export());
+    }
+
+    @PostMapping(value = "/sketches/merge", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, Integer>> mergeSketches(@RequestBody byte[] exported) throws IOException {
+        return ResponseEntity.ok(Map.of("mergedWindows", sketchStore.merge(exported)));
+    }
+}
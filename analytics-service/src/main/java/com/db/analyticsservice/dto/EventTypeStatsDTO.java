@@ -0,0 +1,76 @@
+package com.db.analyticsservice.dto;
+
+public class EventTypeStatsDTO {
+    private String eventType;
+    private long total;
+    private int tumblingWindowSeconds;
+    private long currentWindowCount;
+    private long previousWindowCount;
+    private int slidingWindowSeconds;
+    private long slidingWindowCount;
+    private double ratePerSecond;
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getTumblingWindowSeconds() {
+        return tumblingWindowSeconds;
+    }
+
+    public void setTumblingWindowSeconds(int tumblingWindowSeconds) {
+        this.tumblingWindowSeconds = tumblingWindowSeconds;
+    }
+
+    public long getCurrentWindowCount() {
+        return currentWindowCount;
+    }
+
+    public void setCurrentWindowCount(long currentWindowCount) {
+        this.currentWindowCount = currentWindowCount;
+    }
+
+    public long getPreviousWindowCount() {
+        return previousWindowCount;
+    }
+
+    public void setPreviousWindowCount(long previousWindowCount) {
+        this.previousWindowCount = previousWindowCount;
+    }
+
+    public int getSlidingWindowSeconds() {
+        return slidingWindowSeconds;
+    }
+
+    public void setSlidingWindowSeconds(int slidingWindowSeconds) {
+        this.slidingWindowSeconds = slidingWindowSeconds;
+    }
+
+    public long getSlidingWindowCount() {
+        return slidingWindowCount;
+    }
+
+    public void setSlidingWindowCount(long slidingWindowCount) {
+        this.slidingWindowCount = slidingWindowCount;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public void setRatePerSecond(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+}
@@ -0,0 +1,69 @@
+package com.db.analyticsservice.dto;
+
+import java.util.Map;
+
+public class SketchWindowDTO {
+    private String windowStart;
+    private String windowEnd;
+    private long events;
+    private long distinctPatients;
+    private long distinctEmailDomains;
+    private Map<String, Long> topPatients;
+    private Map<String, Long> topEmailDomains;
+
+    public String getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(String windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public String getWindowEnd() {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(String windowEnd) {
+        this.windowEnd = windowEnd;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public void setEvents(long events) {
+        this.events = events;
+    }
+
+    public long getDistinctPatients() {
+        return distinctPatients;
+    }
+
+    public void setDistinctPatients(long distinctPatients) {
+        this.distinctPatients = distinctPatients;
+    }
+
+    public long getDistinctEmailDomains() {
+        return distinctEmailDomains;
+    }
+
+    public void setDistinctEmailDomains(long distinctEmailDomains) {
+        this.distinctEmailDomains = distinctEmailDomains;
+    }
+
+    public Map<String, Long> getTopPatients() {
+        return topPatients;
+    }
+
+    public void setTopPatients(Map<String, Long> topPatients) {
+        this.topPatients = topPatients;
+    }
+
+    public Map<String, Long> getTopEmailDomains() {
+        return topEmailDomains;
+    }
+
+    public void setTopEmailDomains(Map<String, Long> topEmailDomains) {
+        this.topEmailDomains = topEmailDomains;
+    }
+}
@@ -0,0 +1,292 @@
+package com.db.analyticsservice.eventlog;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import patient.events.PatientEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only log of patient events, split into memory-mapped {@link LogSegment}s. Records
+ * are stamped with the Kafka record timestamp, clamped so it never goes backwards within the log;
+ * this keeps every segment sorted by time and lets scans binary-search the sparse index.
+ * <p>
+ * Closed segments are deleted once older than {@code analytics.eventlog.retention} or when the
+ * log exceeds {@code analytics.eventlog.retention-bytes}. With
+ * {@code analytics.eventlog.compaction-enabled}, closed segments are also rewritten to drop events
+ * of patients that have a later event. The latest sequence per patient is collected from the newest
+ * segment backwards into a map of at most {@code analytics.eventlog.compaction-max-keys} patients;
+ * events of patients not in it are kept, so compaction never needs heap in proportion to the log.
+ * Each segment is then rewritten on its own, copying retained records straight between the mapped
+ * files.
+ */
+@Component
+public class EventLog {
+    private static final Logger log = LoggerFactory.getLogger(EventLog.class);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+    private final Duration retention;
+    private final long retentionBytes;
+    private final boolean compactionEnabled;
+    private final int compactionMaxKeys;
+    private final Object writeLock = new Object();
+    // replaced, never mutated, so scans iterate over a stable snapshot
+    private volatile List<LogSegment> segments = List.of();
+    private long nextSequence;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public EventLog(@Value("${analytics.eventlog.directory:./data/eventlog}") String directory,
+                    @Value("${analytics.eventlog.segment-bytes:67108864}") int segmentBytes,
+                    @Value("${analytics.eventlog.index-interval-bytes:4096}") int indexIntervalBytes,
+                    @Value("${analytics.eventlog.retention:7d}") Duration retention,
+                    @Value("${analytics.eventlog.retention-bytes:10737418240}") long retentionBytes,
+                    @Value("${analytics.eventlog.compaction-enabled:false}") boolean compactionEnabled,
+                    @Value("${analytics.eventlog.compaction-max-keys:100000}") int compactionMaxKeys,
+                    MeterRegistry meterRegistry) {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.retention = retention;
+        this.retentionBytes = retentionBytes;
+        this.compactionEnabled = compactionEnabled;
+        this.compactionMaxKeys = compactionMaxKeys;
+        Gauge.builder("analytics.eventlog.segments", this, eventLog -> eventLog.segments.size())
+                .register(meterRegistry);
+        Gauge.builder("analytics.eventlog.size", this, EventLog::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> paths = Files.list(directory)) {
+                files = paths.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+            }
+            List<LogSegment> loaded = new ArrayList<>(files.size() + 1);
+            for (Path file : files) {
+                loaded.add(LogSegment.open(file, indexIntervalBytes));
+            }
+            synchronized (writeLock) {
+                if (loaded.isEmpty()) {
+                    loaded.add(LogSegment.create(directory, 0, segmentBytes, indexIntervalBytes));
+                }
+                LogSegment active = loaded.getLast();
+                nextSequence = active.lastSequence() + 1;
+                lastTimestamp = loaded.stream().mapToLong(LogSegment::lastTimestamp).max().orElse(Long.MIN_VALUE);
+                segments = List.copyOf(loaded);
+            }
+            log.info("Opened event log in {} with {} segments, next sequence {}", directory, loaded.size(), nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open event log in " + directory, e);
+        }
+    }
+
+    /**
+     * @return the sequence assigned to the record
+     */
+    public long append(long timestampMs, byte[] payload) {
+        if (payload.length + LogSegment.HEADER_BYTES + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Event of " + payload.length + " bytes does not fit in a segment");
+        }
+        synchronized (writeLock) {
+            LogSegment active = segments.getLast();
+            if (!active.hasRoomFor(payload.length)) {
+                active = roll();
+            }
+            long sequence = nextSequence++;
+            lastTimestamp = Math.max(lastTimestamp, timestampMs);
+            active.append(sequence, lastTimestamp, payload);
+            return sequence;
+        }
+    }
+
+    private LogSegment roll() {
+        try {
+            segments.getLast().flush();
+            LogSegment active = LogSegment.create(directory, nextSequence, segmentBytes, indexIntervalBytes);
+            List<LogSegment> rolled = new ArrayList<>(segments);
+            rolled.add(active);
+            segments = List.copyOf(rolled);
+            return active;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll event log segment", e);
+        }
+    }
+
+    /**
+     * Visits events with {@code fromMs <= timestamp < toMs} in log order without copying them.
+     */
+    public void scan(long fromMs, long toMs, EventLogVisitor visitor) {
+        for (LogSegment segment : segments) {
+            if (segment.isEmpty() || segment.lastTimestamp() < fromMs) {
+                continue;
+            }
+            if (segment.firstTimestamp() >= toMs || !segment.scan(fromMs, toMs, visitor)) {
+                return;
+            }
+        }
+    }
+
+    public void flush() {
+        segments.getLast().flush();
+    }
+
+    public long sizeInBytes() {
+        return segments.stream().mapToLong(LogSegment::sizeInBytes).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.eventlog.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        deleteExpiredSegments();
+        if (compactionEnabled) {
+            compact();
+        }
+    }
+
+    private void deleteExpiredSegments() {
+        long expiredBefore = System.currentTimeMillis() - retention.toMillis();
+        List<LogSegment> deleted = new ArrayList<>();
+        synchronized (writeLock) {
+            List<LogSegment> retained = new ArrayList<>(segments);
+            long size = sizeInBytes();
+            // the active segment is never deleted
+            while (retained.size() > 1) {
+                LogSegment oldest = retained.getFirst();
+                if (oldest.lastTimestamp() >= expiredBefore && size <= retentionBytes) {
+                    break;
+                }
+                size -= oldest.sizeInBytes();
+                deleted.add(retained.removeFirst());
+            }
+            segments = List.copyOf(retained);
+        }
+        for (LogSegment segment : deleted) {
+            try {
+                // running scans keep their mapping, the file is only gone from the directory
+                Files.deleteIfExists(segment.path());
+                log.info("Deleted event log segment {}", segment.path().getFileName());
+            } catch (IOException e) {
+                log.warn("Failed to delete event log segment {}: {}", segment.path(), e.getMessage());
+            }
+        }
+    }
+
+    private void compact() {
+        List<LogSegment> snapshot = segments;
+        Map<String, Long> latestSequence = new HashMap<>();
+        // newest first, so the bounded map covers the most recent patients; every entry is a real
+        // later event, so dropping older events of the patients in it is always safe
+        for (int i = snapshot.size() - 1; i >= 0 && latestSequence.size() < compactionMaxKeys; i--) {
+            snapshot.get(i).scan(Long.MIN_VALUE, Long.MAX_VALUE, (sequence, timestamp, payload) -> {
+                String patientId = patientId(payload);
+                if (patientId == null) {
+                    return true;
+                }
+                Long latest = latestSequence.get(patientId);
+                if (latest != null) {
+                    latestSequence.put(patientId, Math.max(latest, sequence));
+                    return true;
+                }
+                if (latestSequence.size() >= compactionMaxKeys) {
+                    return false;
+                }
+                latestSequence.put(patientId, sequence);
+                return true;
+            });
+        }
+
+        List<LogSegment> closed = snapshot.subList(0, snapshot.size() - 1);
+        for (LogSegment segment : closed) {
+            try {
+                compact(segment, latestSequence);
+            } catch (IOException e) {
+                log.warn("Failed to compact event log segment {}: {}", segment.path(), e.getMessage());
+            }
+        }
+    }
+
+    private void compact(LogSegment segment, Map<String, Long> latestSequence) throws IOException {
+        int[] retainedBytes = {Integer.BYTES};
+        int[] total = {0};
+        int[] retained = {0};
+        segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, (sequence, timestamp, payload) -> {
+            total[0]++;
+            if (isRetained(sequence, payload, latestSequence)) {
+                retained[0]++;
+                retainedBytes[0] += LogSegment.HEADER_BYTES + payload.remaining();
+            }
+            return true;
+        });
+        if (retained[0] == total[0]) {
+            return;
+        }
+
+        Path compactedPath = segment.path().resolveSibling(segment.path().getFileName() + ".compacted");
+        Files.deleteIfExists(compactedPath);
+        LogSegment compacted = LogSegment.createAt(compactedPath, segment.baseSequence(), retainedBytes[0], indexIntervalBytes);
+        segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, (sequence, timestamp, payload) -> {
+            if (isRetained(sequence, payload, latestSequence)) {
+                compacted.append(sequence, timestamp, payload);
+            }
+            return true;
+        });
+        compacted.flush();
+        Files.move(compactedPath, segment.path(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LogSegment reopened = LogSegment.open(segment.path(), indexIntervalBytes);
+
+        synchronized (writeLock) {
+            List<LogSegment> replaced = new ArrayList<>(segments);
+            int index = replaced.indexOf(segment);
+            if (index >= 0) {
+                replaced.set(index, reopened);
+                segments = List.copyOf(replaced);
+            }
+        }
+        log.info("Compacted event log segment {} from {} to {} events", segment.path().getFileName(), total[0], retained[0]);
+    }
+
+    private static boolean isRetained(long sequence, ByteBuffer payload, Map<String, Long> latestSequence) {
+        String patientId = patientId(payload.duplicate());
+        Long latest = patientId == null ? null : latestSequence.get(patientId);
+        return latest == null || latest <= sequence;
+    }
+
+    private static String patientId(ByteBuffer payload) {
+        try {
+            String patientId = PatientEvent.parseFrom(payload).getPatientId();
+            return patientId.isEmpty() ? null : patientId;
+        } catch (InvalidProtocolBufferException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+}
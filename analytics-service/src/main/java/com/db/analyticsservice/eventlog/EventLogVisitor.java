@@ -0,0 +1,13 @@
+package com.db.analyticsservice.eventlog;
+
+import java.nio.ByteBuffer;
+
+@FunctionalInterface
+public interface EventLogVisitor {
+
+    /**
+     * @param payload read-only view of the stored PatientEvent bytes, valid only during the call
+     * @return false to stop the scan
+     */
+    boolean visit(long sequence, long timestamp, ByteBuffer payload);
+}
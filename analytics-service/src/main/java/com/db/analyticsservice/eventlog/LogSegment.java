@@ -0,0 +1,213 @@
+package com.db.analyticsservice.eventlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One memory-mapped file of the event log. Records are laid out back to back as
+ * <pre>
+ *   int  length     payload length in bytes, 0 marks the end of the segment
+ *   long sequence   log-wide, strictly increasing
+ *   long timestamp  epoch millis, never decreasing within the log
+ *   byte[] payload  PatientEvent protobuf, exactly as received from Kafka
+ * </pre>
+ * A sparse index holds the timestamp and position of one record every
+ * {@code indexIntervalBytes}, so a time-range scan starts close to its first match. There is a
+ * single writer; readers only see records below the volatile {@code writePosition}.
+ */
+class LogSegment {
+    static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int INITIAL_INDEX_CAPACITY = 64;
+
+    private record SparseIndex(long[] timestamps, int[] positions) {
+    }
+
+    private final Path path;
+    private final long baseSequence;
+    private final MappedByteBuffer buffer;
+    private final int indexIntervalBytes;
+    private volatile SparseIndex index = new SparseIndex(new long[INITIAL_INDEX_CAPACITY], new int[INITIAL_INDEX_CAPACITY]);
+    private volatile int indexEntries;
+    private volatile int writePosition;
+    private int lastIndexedPosition = -1;
+    private volatile long firstTimestamp = Long.MAX_VALUE;
+    private volatile long lastTimestamp = Long.MIN_VALUE;
+    private volatile long lastSequence;
+
+    private LogSegment(Path path, long baseSequence, MappedByteBuffer buffer, int indexIntervalBytes) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.buffer = buffer;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.lastSequence = baseSequence - 1;
+    }
+
+    static LogSegment create(Path directory, long baseSequence, int segmentBytes, int indexIntervalBytes) throws IOException {
+        return createAt(directory.resolve(fileName(baseSequence)), baseSequence, segmentBytes, indexIntervalBytes);
+    }
+
+    static LogSegment createAt(Path path, long baseSequence, int segmentBytes, int indexIntervalBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new LogSegment(path, baseSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes), indexIntervalBytes);
+        }
+    }
+
+    /**
+     * Maps an existing segment and rebuilds its index and write position by scanning it.
+     */
+    static LogSegment open(Path path, int indexIntervalBytes) throws IOException {
+        long baseSequence = Long.parseLong(path.getFileName().toString().replace(".log", ""));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            LogSegment segment = new LogSegment(path, baseSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), indexIntervalBytes);
+            segment.recover();
+            return segment;
+        }
+    }
+
+    static String fileName(long baseSequence) {
+        return "%020d.log".formatted(baseSequence);
+    }
+
+    private void recover() {
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            long sequence = buffer.getLong(position + Integer.BYTES);
+            long timestamp = buffer.getLong(position + Integer.BYTES + Long.BYTES);
+            track(position, sequence, timestamp);
+            position += HEADER_BYTES + length;
+        }
+        writePosition = position;
+    }
+
+    boolean hasRoomFor(int payloadBytes) {
+        // keep room for the zero length that terminates the segment
+        return writePosition + HEADER_BYTES + payloadBytes + Integer.BYTES <= buffer.capacity();
+    }
+
+    void append(long sequence, long timestamp, byte[] payload) {
+        append(sequence, timestamp, ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Copies the remaining bytes of {@code payload}, e.g. a record of another segment, without
+     * going through the heap. The payload's position is left unchanged.
+     */
+    void append(long sequence, long timestamp, ByteBuffer payload) {
+        int position = writePosition;
+        int length = payload.remaining();
+        buffer.put(position + HEADER_BYTES, payload, payload.position(), length);
+        buffer.putLong(position + Integer.BYTES, sequence);
+        buffer.putLong(position + Integer.BYTES + Long.BYTES, timestamp);
+        buffer.putInt(position, length);
+        track(position, sequence, timestamp);
+        writePosition = position + HEADER_BYTES + length;
+    }
+
+    private void track(int position, long sequence, long timestamp) {
+        if (lastIndexedPosition < 0 || position - lastIndexedPosition >= indexIntervalBytes) {
+            SparseIndex current = index;
+            int entries = indexEntries;
+            if (entries == current.timestamps().length) {
+                current = new SparseIndex(Arrays.copyOf(current.timestamps(), entries * 2), Arrays.copyOf(current.positions(), entries * 2));
+                index = current;
+            }
+            current.timestamps()[entries] = timestamp;
+            current.positions()[entries] = position;
+            indexEntries = entries + 1;
+            lastIndexedPosition = position;
+        }
+        if (firstTimestamp == Long.MAX_VALUE) {
+            firstTimestamp = timestamp;
+        }
+        lastTimestamp = timestamp;
+        lastSequence = sequence;
+    }
+
+    /**
+     * Visits records with {@code fromMs <= timestamp < toMs}. Payloads are read-only views of the
+     * mapped file and are only valid during the callback.
+     *
+     * @return false if the visitor asked to stop
+     */
+    boolean scan(long fromMs, long toMs, EventLogVisitor visitor) {
+        int limit = writePosition;
+        int position = startPosition(fromMs);
+        while (position < limit) {
+            int length = buffer.getInt(position);
+            long timestamp = buffer.getLong(position + Integer.BYTES + Long.BYTES);
+            if (timestamp >= toMs) {
+                return false;
+            }
+            if (timestamp >= fromMs) {
+                long sequence = buffer.getLong(position + Integer.BYTES);
+                ByteBuffer payload = buffer.slice(position + HEADER_BYTES, length).asReadOnlyBuffer();
+                if (!visitor.visit(sequence, timestamp, payload)) {
+                    return false;
+                }
+            }
+            position += HEADER_BYTES + length;
+        }
+        return true;
+    }
+
+    private int startPosition(long fromMs) {
+        int entries = indexEntries;
+        SparseIndex current = index;
+        // last index entry strictly before fromMs; records before it are all older
+        int low = 0;
+        int high = entries - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (current.timestamps()[mid] < fromMs) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? 0 : current.positions()[found];
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    int sizeInBytes() {
+        return writePosition;
+    }
+
+    boolean isEmpty() {
+        return writePosition == 0;
+    }
+}
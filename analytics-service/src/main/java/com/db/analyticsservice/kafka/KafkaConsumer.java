@@ -1,24 +1,60 @@
 package com.db.analyticsservice.kafka;
 
+import com.db.analyticsservice.aggregation.EventAggregator;
+import com.db.analyticsservice.eventlog.EventLog;
+import com.db.analyticsservice.sketch.SketchStore;
 import com.google.protobuf.InvalidProtocolBufferException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import patient.events.PatientEvent;
 
+import java.util.List;
+
 @Service
 public class KafkaConsumer {
     private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
+    private final EventAggregator eventAggregator;
+    private final EventLog eventLog;
+    private final SketchStore sketchStore;
+    private final Counter invalidEvents;
+    private final boolean flushEventLog;
+
+    public KafkaConsumer(EventAggregator eventAggregator,
+                         EventLog eventLog,
+                         SketchStore sketchStore,
+                         MeterRegistry meterRegistry,
+                         @Value("${analytics.eventlog.flush-every-batch:false}") boolean flushEventLog) {
+        this.eventAggregator = eventAggregator;
+        this.eventLog = eventLog;
+        this.sketchStore = sketchStore;
+        this.invalidEvents = meterRegistry.counter("analytics.events.invalid");
+        this.flushEventLog = flushEventLog;
+    }
 
-    @KafkaListener(topics = "patient", groupId = "analytics-service")
-    public void consumeEvent(byte[] event) {
-        try {
-            PatientEvent patientEvent = PatientEvent.parseFrom(event);
-            log.info("Received patient event: {}", patientEvent.toString());
-            // perform any business logic related to analytics here
-        } catch (InvalidProtocolBufferException e) {
-            log.error("Error parsing event: {}", e.getMessage());
+    @KafkaListener(topics = "patient", groupId = "analytics-service", batch = "true")
+    public void consumeEvents(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                PatientEvent patientEvent = PatientEvent.parseFrom(record.value());
+                String eventType = patientEvent.getEventType().isEmpty() ? "UNKNOWN" : patientEvent.getEventType();
+                eventAggregator.record(eventType, record.timestamp());
+                eventLog.append(record.timestamp(), record.value());
+                sketchStore.record(record.timestamp(), patientEvent.getPatientId(), patientEvent.getEmail());
+            } catch (InvalidProtocolBufferException e) {
+                invalidEvents.increment();
+                log.error("Error parsing event at {}-{}@{}: {}", record.topic(), record.partition(), record.offset(), e.getMessage());
+            }
+        }
+        if (flushEventLog) {
+            // offsets are committed after this method returns, so the batch is durable before that
+            eventLog.flush();
         }
+        log.debug("Aggregated {} patient events", records.size());
     }
 }
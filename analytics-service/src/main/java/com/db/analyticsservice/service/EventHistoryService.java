@@ -0,0 +1,36 @@
+package com.db.analyticsservice.service;
+
+import com.db.analyticsservice.eventlog.EventLog;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.stereotype.Service;
+import patient.events.PatientEvent;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class EventHistoryService {
+    private final EventLog eventLog;
+
+    public EventHistoryService(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Counts stored events per event type with {@code from <= timestamp < to}.
+     */
+    public Map<String, Long> countByEventType(Instant from, Instant to) {
+        Map<String, Long> counts = new TreeMap<>();
+        eventLog.scan(from.toEpochMilli(), to.toEpochMilli(), (sequence, timestamp, payload) -> {
+            try {
+                String eventType = PatientEvent.parseFrom(payload).getEventType();
+                counts.merge(eventType.isEmpty() ? "UNKNOWN" : eventType, 1L, Long::sum);
+            } catch (InvalidProtocolBufferException e) {
+                counts.merge("INVALID", 1L, Long::sum);
+            }
+            return true;
+        });
+        return counts;
+    }
+}
@@ -0,0 +1,29 @@
+package com.db.analyticsservice.sketch;
+
+final class Hashing {
+    private Hashing() {
+    }
+
+    /**
+     * 64-bit hash of a string's UTF-16 code units without allocating: a multiplicative
+     * accumulation finished with the MurmurHash3 fmix64 avalanche step, so every input bit
+     * affects the high bits HyperLogLog uses for bucket selection.
+     */
+    static long hash64(CharSequence value) {
+        long hash = 0x9E3779B97F4A7C15L ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+            hash = Long.rotateLeft(hash, 27);
+        }
+        return fmix64(hash);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
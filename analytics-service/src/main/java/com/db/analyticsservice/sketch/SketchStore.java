@@ -0,0 +1,151 @@
+package com.db.analyticsservice.sketch;
+
+import com.db.analyticsservice.dto.SketchWindowDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the sketches of the last {@code analytics.sketch.windows} tumbling windows of
+ * {@code analytics.sketch.window-seconds} each, in a fixed ring. Windows are exported in a
+ * binary form that another instance can merge, so consumers that each see a subset of the
+ * partitions can be combined into one view.
+ */
+@Component
+public class SketchStore {
+    private final long windowMs;
+    private final int topK;
+    private final SketchWindow[] windows;
+
+    public SketchStore(@Value("${analytics.sketch.window-seconds:3600}") int windowSeconds,
+                       @Value("${analytics.sketch.windows:24}") int windowCount,
+                       @Value("${analytics.sketch.top-k:20}") int topK) {
+        this.windowMs = windowSeconds * 1000L;
+        this.topK = topK;
+        this.windows = new SketchWindow[windowCount];
+    }
+
+    public void record(long timestampMs, String patientId, String email) {
+        SketchWindow window = window(timestampMs - Math.floorMod(timestampMs, windowMs), true);
+        if (window != null) {
+            window.record(patientId, emailDomain(email));
+        }
+    }
+
+    private static String emailDomain(String email) {
+        int at = email.lastIndexOf('@');
+        return at < 0 ? "" : email.substring(at + 1).toLowerCase();
+    }
+
+    /**
+     * @return the window starting at {@code startMs}, or null if it is older than the ring
+     */
+    private SketchWindow window(long startMs, boolean create) {
+        int slot = (int) Math.floorMod(startMs / windowMs, (long) windows.length);
+        synchronized (windows) {
+            SketchWindow window = windows[slot];
+            if (window != null && window.startMs() == startMs) {
+                return window;
+            }
+            if (!create || (window != null && window.startMs() > startMs)) {
+                return null;
+            }
+            window = new SketchWindow(startMs, topK);
+            windows[slot] = window;
+            return window;
+        }
+    }
+
+    private List<SketchWindow> recentWindows(int count) {
+        List<SketchWindow> recent = new ArrayList<>();
+        synchronized (windows) {
+            for (SketchWindow window : windows) {
+                if (window != null) {
+                    recent.add(window);
+                }
+            }
+        }
+        return recent.stream()
+                .sorted(Comparator.comparingLong(SketchWindow::startMs).reversed())
+                .limit(count)
+                .toList();
+    }
+
+    public List<SketchWindowDTO> windows(int count) {
+        return recentWindows(count).stream()
+                .map(window -> toDTO(window, window.startMs(), window.startMs() + windowMs))
+                .toList();
+    }
+
+    /**
+     * Merges the last {@code count} windows into one view; distinct counts are of the union.
+     */
+    public Optional<SketchWindowDTO> summary(int count) {
+        List<SketchWindow> recent = recentWindows(count);
+        if (recent.isEmpty()) {
+            return Optional.empty();
+        }
+        SketchWindow merged = new SketchWindow(recent.getLast().startMs(), topK);
+        recent.forEach(merged::merge);
+        return Optional.of(toDTO(merged, recent.getLast().startMs(), recent.getFirst().startMs() + windowMs));
+    }
+
+    public byte[] export() {
+        List<SketchWindow> recent = recentWindows(windows.length);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(recent.size());
+            for (SketchWindow window : recent) {
+                window.writeTo(output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Merges windows exported by another instance into the matching local windows. Windows older
+     * than the local ring are ignored.
+     *
+     * @return the number of windows merged
+     */
+    public int merge(byte[] exported) throws IOException {
+        int merged = 0;
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(exported))) {
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                SketchWindow remote = SketchWindow.readFrom(input, topK);
+                SketchWindow local = window(remote.startMs(), true);
+                if (local != null) {
+                    local.merge(remote);
+                    merged++;
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static SketchWindowDTO toDTO(SketchWindow window, long startMs, long endMs) {
+        SketchWindowDTO dto = new SketchWindowDTO();
+        dto.setWindowStart(Instant.ofEpochMilli(startMs).toString());
+        dto.setWindowEnd(Instant.ofEpochMilli(endMs).toString());
+        dto.setEvents(window.events());
+        dto.setDistinctPatients(window.distinctPatients());
+        dto.setDistinctEmailDomains(window.distinctEmailDomains());
+        dto.setTopPatients(window.topPatients());
+        dto.setTopEmailDomains(window.topEmailDomains());
+        return dto;
+    }
+}
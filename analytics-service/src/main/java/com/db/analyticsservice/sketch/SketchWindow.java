@@ -0,0 +1,108 @@
+package com.db.analyticsservice.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * All sketches for one tumbling window: distinct patients and email domains, and the heaviest
+ * patients and email domains. Memory is fixed per window whatever the event volume.
+ */
+class SketchWindow {
+    private static final int MAGIC = 0x534B5731;
+
+    private final long startMs;
+    private final HyperLogLog patients;
+    private final HyperLogLog emailDomains;
+    private final HeavyHitters topPatients;
+    private final HeavyHitters topEmailDomains;
+    private long events;
+
+    SketchWindow(long startMs, int topK) {
+        this(startMs, new HyperLogLog(), new HyperLogLog(), new HeavyHitters(topK), new HeavyHitters(topK), 0);
+    }
+
+    private SketchWindow(long startMs, HyperLogLog patients, HyperLogLog emailDomains,
+                         HeavyHitters topPatients, HeavyHitters topEmailDomains, long events) {
+        this.startMs = startMs;
+        this.patients = patients;
+        this.emailDomains = emailDomains;
+        this.topPatients = topPatients;
+        this.topEmailDomains = topEmailDomains;
+        this.events = events;
+    }
+
+    synchronized void record(String patientId, String emailDomain) {
+        events++;
+        if (!patientId.isEmpty()) {
+            long hash = Hashing.hash64(patientId);
+            patients.add(hash);
+            topPatients.add(patientId, hash, 1);
+        }
+        if (!emailDomain.isEmpty()) {
+            long hash = Hashing.hash64(emailDomain);
+            emailDomains.add(hash);
+            topEmailDomains.add(emailDomain, hash, 1);
+        }
+    }
+
+    // callers only merge into windows no other thread locks first, so the nested lock cannot deadlock
+    synchronized void merge(SketchWindow other) {
+        synchronized (other) {
+            events += other.events;
+            patients.merge(other.patients);
+            emailDomains.merge(other.emailDomains);
+            topPatients.merge(other.topPatients);
+            topEmailDomains.merge(other.topEmailDomains);
+        }
+    }
+
+    long startMs() {
+        return startMs;
+    }
+
+    synchronized long events() {
+        return events;
+    }
+
+    synchronized long distinctPatients() {
+        return patients.estimate();
+    }
+
+    synchronized long distinctEmailDomains() {
+        return emailDomains.estimate();
+    }
+
+    synchronized Map<String, Long> topPatients() {
+        return topPatients.top();
+    }
+
+    synchronized Map<String, Long> topEmailDomains() {
+        return topEmailDomains.top();
+    }
+
+    synchronized void writeTo(DataOutput output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeLong(startMs);
+        output.writeLong(events);
+        patients.writeTo(output);
+        emailDomains.writeTo(output);
+        topPatients.writeTo(output);
+        topEmailDomains.writeTo(output);
+    }
+
+    static SketchWindow readFrom(DataInput input, int topK) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a serialized sketch window");
+        }
+        long startMs = input.readLong();
+        long events = input.readLong();
+        return new SketchWindow(startMs,
+                HyperLogLog.readFrom(input),
+                HyperLogLog.readFrom(input),
+                HeavyHitters.readFrom(input, topK),
+                HeavyHitters.readFrom(input, topK),
+                events);
+    }
+}
@@ -0,0 +1,115 @@
+package com.db.analyticsservice.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeavyHittersTest {
+    private static final int HOT_KEYS = 5;
+    private static final int COLD_KEYS = 20_000;
+
+    private static void add(HeavyHitters heavyHitters, String key, long count) {
+        heavyHitters.add(key, Hashing.hash64(key), count);
+    }
+
+    private static long hotCount(int key) {
+        return 1000L * (HOT_KEYS - key);
+    }
+
+    /**
+     * A few hot keys interleaved with many keys seen once, so the hot keys must push the cold
+     * ones out of the candidate set rather than simply arriving first.
+     */
+    private static List<String> stream() {
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < COLD_KEYS; i++) {
+            events.add("cold-" + i);
+            for (int key = 0; key < HOT_KEYS; key++) {
+                // spreads exactly hotCount(key) occurrences evenly over the stream
+                if (i * hotCount(key) / COLD_KEYS != (i + 1) * hotCount(key) / COLD_KEYS) {
+                    events.add("hot-" + key);
+                }
+            }
+        }
+        return events;
+    }
+
+    @Test
+    void estimatesNeverUndercount() {
+        HeavyHitters heavyHitters = new HeavyHitters(10);
+        stream().forEach(key -> add(heavyHitters, key, 1));
+
+        for (int key = 0; key < HOT_KEYS; key++) {
+            assertThat(heavyHitters.estimate(Hashing.hash64("hot-" + key))).isGreaterThanOrEqualTo(hotCount(key));
+        }
+        assertThat(heavyHitters.estimate(Hashing.hash64("cold-0"))).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void findsTheHeavyHittersInOrder() {
+        HeavyHitters heavyHitters = new HeavyHitters(10);
+        List<String> events = stream();
+        events.forEach(key -> add(heavyHitters, key, 1));
+
+        Map<String, Long> top = heavyHitters.top();
+
+        assertThat(top).hasSizeLessThanOrEqualTo(10);
+        assertThat(top.keySet()).startsWith("hot-0", "hot-1", "hot-2", "hot-3", "hot-4");
+        // overcount bound from the sketch width, with generous headroom
+        long tolerance = events.size() / 100;
+        for (int key = 0; key < HOT_KEYS; key++) {
+            assertThat(top.get("hot-" + key)).isBetween(hotCount(key), hotCount(key) + tolerance);
+        }
+    }
+
+    @Test
+    void weightedAddsCountTheirWeight() {
+        HeavyHitters heavyHitters = new HeavyHitters(2);
+        add(heavyHitters, "a", 5);
+        add(heavyHitters, "b", 1);
+        add(heavyHitters, "c", 3);
+
+        assertThat(heavyHitters.top()).containsExactly(Map.entry("a", 5L), Map.entry("c", 3L));
+    }
+
+    @Test
+    void mergeMatchesASketchOfTheWholeStream() {
+        List<String> events = stream();
+        HeavyHitters whole = new HeavyHitters(10);
+        HeavyHitters first = new HeavyHitters(10);
+        HeavyHitters second = new HeavyHitters(10);
+        for (int i = 0; i < events.size(); i++) {
+            add(whole, events.get(i), 1);
+            add(i % 2 == 0 ? first : second, events.get(i), 1);
+        }
+
+        first.merge(second);
+
+        for (int key = 0; key < HOT_KEYS; key++) {
+            long hash = Hashing.hash64("hot-" + key);
+            assertThat(first.estimate(hash)).isEqualTo(whole.estimate(hash));
+        }
+        assertThat(first.top().keySet()).startsWith("hot-0", "hot-1", "hot-2", "hot-3", "hot-4");
+    }
+
+    @Test
+    void roundTripsThroughItsSerializedForm() throws IOException {
+        HeavyHitters heavyHitters = new HeavyHitters(10);
+        stream().forEach(key -> add(heavyHitters, key, 1));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        heavyHitters.writeTo(new DataOutputStream(bytes));
+
+        HeavyHitters copy = HeavyHitters.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 10);
+
+        assertThat(copy.top()).isEqualTo(heavyHitters.top());
+    }
+}
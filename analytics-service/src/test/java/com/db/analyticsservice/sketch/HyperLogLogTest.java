@@ -0,0 +1,83 @@
+package com.db.analyticsservice.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class HyperLogLogTest {
+
+    private static HyperLogLog sketch(String prefix, int from, int to) {
+        HyperLogLog hyperLogLog = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            hyperLogLog.add(Hashing.hash64(prefix + i));
+        }
+        return hyperLogLog;
+    }
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        assertThat(sketch("patient-", 0, 1000).estimate()).isCloseTo(1000L, withinPercentage(2));
+    }
+
+    @Test
+    void largeCardinalitiesStayWithinTheStandardError() {
+        // 0.8% standard error; 3% leaves almost four standard deviations of headroom
+        assertThat(sketch("patient-", 0, 1_000_000).estimate()).isCloseTo(1_000_000L, withinPercentage(3));
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheEstimate() {
+        HyperLogLog hyperLogLog = sketch("patient-", 0, 10_000);
+        long estimate = hyperLogLog.estimate();
+
+        for (int i = 0; i < 10_000; i++) {
+            hyperLogLog.add(Hashing.hash64("patient-" + i));
+        }
+
+        assertThat(hyperLogLog.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void mergeEqualsTheSketchOfTheUnion() {
+        HyperLogLog first = sketch("patient-", 0, 60_000);
+        HyperLogLog second = sketch("patient-", 40_000, 100_000);
+
+        first.merge(second);
+
+        assertThat(first.estimate()).isEqualTo(sketch("patient-", 0, 100_000).estimate());
+        assertThat(first.estimate()).isCloseTo(100_000L, withinPercentage(3));
+    }
+
+    @Test
+    void roundTripsThroughItsSerializedForm() throws IOException {
+        HyperLogLog hyperLogLog = sketch("patient-", 0, 50_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hyperLogLog.writeTo(new DataOutputStream(bytes));
+
+        HyperLogLog copy = HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(copy.estimate()).isEqualTo(hyperLogLog.estimate());
+    }
+
+    @Test
+    void rejectsOtherPrecisions() {
+        byte[] bytes = new byte[1 + (1 << HyperLogLog.PRECISION)];
+        bytes[0] = HyperLogLog.PRECISION + 1;
+
+        assertThatThrownBy(() -> HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes))))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -26,6 +26,15 @@ dependencies {
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     // rate limiting
     implementation("org.springframework.boot:spring-boot-starter-data-redis-reactive")
+    // remote validation cache
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    //actuator
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("io.micrometer:micrometer-registry-prometheus")
+    // local JWT verification
+    implementation("io.jsonwebtoken:jjwt-api:0.12.6")
+    runtimeOnly("io.jsonwebtoken:jjwt-impl:0.12.6")
+    runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.12.6")
 }
 
 dependencyManagement {
@@ -1,18 +1,33 @@
 package com.db.apigateway.config;
 
+import com.db.apigateway.filter.JwtValidationGatewayFilterFactory;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import reactor.core.publisher.Mono;
 
 @Configuration
 public class RateLimitingConfig {
 
     @Bean
+    @Primary
     public KeyResolver ipKeyResolver() {
         return exchange ->
                 Mono.just(exchange.getRequest().getRemoteAddress().getAddress().getHostAddress());
     }
 
-
+    /**
+     * Limits authenticated requests per user, keyed on the X-User-Email header that JwtValidation
+     * sets from verified claims, so it must come after JwtValidation in the route's filters.
+     * Requests without the header fall back to the client address.
+     */
+    @Bean
+    public KeyResolver jwtSubjectKeyResolver() {
+        KeyResolver fallback = ipKeyResolver();
+        return exchange -> {
+            String email = exchange.getRequest().getHeaders().getFirst(JwtValidationGatewayFilterFactory.USER_EMAIL_HEADER);
+            return email != null ? Mono.just("sub:" + email) : fallback.resolve(exchange);
+        };
+    }
 }
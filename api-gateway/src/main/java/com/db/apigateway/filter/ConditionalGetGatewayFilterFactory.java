@@ -0,0 +1,100 @@
+package com.db.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers conditional GETs in the gateway. The ETag of each upstream 200/304 response is remembered
+ * per path and query for {@code gateway.etag-cache.ttl-seconds}; while it is remembered, a request
+ * whose If-None-Match contains it gets a 304 without reaching the service. A write through this
+ * gateway drops the entries of the same top-level resource in O(1) by moving the resource's epoch,
+ * which every entry records; writes through other instances can be answered with a stale 304 for up
+ * to the TTL.
+ */
+@Component
+public class ConditionalGetGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+    private record RememberedETag(String eTag, long epoch) {
+    }
+
+    private final Cache<String, RememberedETag> eTags;
+    // per top-level resource, moved by every write; entries from an older epoch are ignored
+    private final ConcurrentMap<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+    private final Counter served;
+
+    public ConditionalGetGatewayFilterFactory(MeterRegistry meterRegistry,
+                                              @Value("${gateway.etag-cache.maximum-size:10000}") long maximumSize,
+                                              @Value("${gateway.etag-cache.ttl-seconds:5}") long ttlSeconds) {
+        this.eTags = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.served = meterRegistry.counter("gateway.etag.not-modified.served");
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String path = request.getURI().getRawPath();
+            // a write to /patients/{id} also changes the /patients pages
+            String resource = path.indexOf('/', 1) < 0 ? path : path.substring(0, path.indexOf('/', 1));
+            if (!HttpMethod.GET.equals(request.method())) {
+                AtomicLong writeEpoch = epochs.computeIfAbsent(resource, r -> new AtomicLong());
+                writeEpoch.incrementAndGet();
+                // again once the write is done, for pages read while it was in progress
+                exchange.getResponse().beforeCommit(() -> {
+                    writeEpoch.incrementAndGet();
+                    return Mono.empty();
+                });
+                return chain.filter(exchange);
+            }
+
+            // read before the upstream call, so a page fetched across a write is remembered as stale
+            AtomicLong resourceEpoch = epochs.get(resource);
+            long epoch = resourceEpoch == null ? 0 : resourceEpoch.get();
+            String key = request.getURI().getRawQuery() == null ? path : path + "?" + request.getURI().getRawQuery();
+            RememberedETag remembered = eTags.getIfPresent(key);
+            String eTag = remembered != null && remembered.epoch() == epoch ? remembered.eTag() : null;
+            ServerHttpResponse response = exchange.getResponse();
+            if (eTag != null && request.getHeaders().getIfNoneMatch().contains(eTag)) {
+                served.increment();
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                response.getHeaders().setETag(eTag);
+                response.getHeaders().setCacheControl("no-cache");
+                return response.setComplete();
+            }
+
+            response.beforeCommit(() -> {
+                HttpStatusCode status = response.getStatusCode();
+                String upstreamETag = response.getHeaders().getETag();
+                if (upstreamETag != null && status != null
+                        && (status.value() == HttpStatus.OK.value() || status.value() == HttpStatus.NOT_MODIFIED.value())) {
+                    eTags.put(key, new RememberedETag(upstreamETag, epoch));
+                } else if (status != null && status.value() == HttpStatus.OK.value()) {
+                    // the service stopped vouching for this page
+                    eTags.invalidate(key);
+                }
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        };
+    }
+}
@@ -1,21 +1,50 @@
 package com.db.apigateway.filter;
 
+import com.db.apigateway.util.JwtUtil;
+import com.db.apigateway.util.RemoteJwtValidator;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
+/**
+ * Authenticates requests with a bearer token. In {@code local} mode (the default) the token is
+ * verified in the gateway by {@link JwtUtil}; in {@code remote} mode, or when no {@code jwt.secret}
+ * is configured, it is checked with auth-service through the {@link RemoteJwtValidator} cache.
+ * Verified claims are passed downstream as X-User-Email and X-User-Role headers in both modes;
+ * client-supplied values of those headers are dropped.
+ */
 @Component
 public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+    private static final Logger log = LoggerFactory.getLogger(JwtValidationGatewayFilterFactory.class);
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
 
-    private final WebClient webClient;
+    private final RemoteJwtValidator remoteJwtValidator;
+    private final JwtUtil jwtUtil;
+    private final boolean localValidation;
 
-    public JwtValidationGatewayFilterFactory(WebClient.Builder webClientBuilder,
-                                             @Value("${auth.service.url}") String authServiceUrl) {
-        this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+    public JwtValidationGatewayFilterFactory(RemoteJwtValidator remoteJwtValidator,
+                                             JwtUtil jwtUtil,
+                                             @Value("${jwt.validation-mode:local}") String validationMode) {
+        this.remoteJwtValidator = remoteJwtValidator;
+        this.jwtUtil = jwtUtil;
+        boolean local = "local".equalsIgnoreCase(validationMode);
+        if (local && !jwtUtil.isConfigured()) {
+            log.warn("jwt.validation-mode=local but jwt.secret is not set, validating tokens with auth-service");
+            local = false;
+        }
+        this.localValidation = local;
     }
 
     @Override
@@ -23,17 +52,54 @@ public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFact
         return (exchange, chain) -> {
             String token = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
             if (token == null || !token.startsWith("Bearer ")) {
-                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-                return exchange.getResponse().setComplete();
+                return unauthorized(exchange);
             }
 
-            return webClient.get()
-                    .uri("/validate")
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .toBodilessEntity()
-                    .then(chain.filter(exchange));
+            if (!localValidation) {
+                String jwt = token.substring(7);
+                return remoteJwtValidator.validate(jwt)
+                        .flatMap(valid -> valid ? chain.filter(withRemoteClaims(exchange, jwt)) : unauthorized(exchange));
+            }
+
+            Claims claims;
+            try {
+                claims = jwtUtil.parseToken(token.substring(7));
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Rejected JWT: {}", e.getMessage());
+                return unauthorized(exchange);
+            }
+            ServerHttpRequest request = exchange.getRequest().mutate()
+                    .headers(headers -> {
+                        headers.set(USER_EMAIL_HEADER, claims.getSubject());
+                        headers.set(USER_ROLE_HEADER, claims.get("role", String.class));
+                    })
+                    .build();
+            return chain.filter(exchange.mutate().request(request).build());
         };
     }
 
+    /**
+     * auth-service has accepted the token, so its payload can be trusted for the user headers.
+     */
+    private ServerWebExchange withRemoteClaims(ServerWebExchange exchange, String token) {
+        JsonNode payload = remoteJwtValidator.readPayload(token);
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(USER_EMAIL_HEADER);
+                    headers.remove(USER_ROLE_HEADER);
+                    if (payload.hasNonNull("sub")) {
+                        headers.set(USER_EMAIL_HEADER, payload.get("sub").asText());
+                    }
+                    if (payload.hasNonNull("role")) {
+                        headers.set(USER_ROLE_HEADER, payload.get("role").asText());
+                    }
+                })
+                .build();
+        return exchange.mutate().request(request).build();
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        return exchange.getResponse().setComplete();
+    }
 }
@@ -0,0 +1,322 @@
+package com.db.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process token-bucket rate limiter, used instead of {@link RedisRateLimiter} so that the
+ * request path never waits on Redis. Each route/key pair has its own bucket, striped into up to
+ * {@code gateway.rate-limiter.local.stripes} independently CAS-updated parts. Buckets live in a bounded cache ({@code gateway.rate-limiter.local.maximum-keys}) and are
+ * evicted after {@code idle-eviction-seconds} without requests.
+ * <p>
+ * With {@code gateway.rate-limiter.local.redis-sync.enabled}, each instance periodically adds the
+ * tokens it consumed to a per-key Redis counter for the current sync window and drains its own
+ * buckets by what the other instances consumed. The shared limit is therefore approximate: it
+ * lags by up to one sync interval.
+ * <p>
+ * Routes configure it like the Redis limiter, with {@code local-rate-limiter.*} arguments.
+ */
+@Primary
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+    private static final Logger log = LoggerFactory.getLogger(LocalRateLimiter.class);
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    private final Config defaultConfig;
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final long syncWindowMs;
+    private final int stripes;
+    private final Disposable sync;
+
+    public LocalRateLimiter(ConfigurationService configurationService,
+                            ObjectProvider<ReactiveStringRedisTemplate> redisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${gateway.rate-limiter.local.replenish-rate:5}") int defaultReplenishRate,
+                            @Value("${gateway.rate-limiter.local.burst-capacity:5}") int defaultBurstCapacity,
+                            @Value("${gateway.rate-limiter.local.maximum-keys:100000}") long maximumKeys,
+                            @Value("${gateway.rate-limiter.local.idle-eviction-seconds:300}") long idleEvictionSeconds,
+                            @Value("${gateway.rate-limiter.local.stripes:8}") int stripes,
+                            @Value("${gateway.rate-limiter.local.redis-sync.enabled:false}") boolean syncEnabled,
+                            @Value("${gateway.rate-limiter.local.redis-sync.interval-ms:1000}") long syncIntervalMs,
+                            @Value("${gateway.rate-limiter.local.redis-sync.window-seconds:10}") long syncWindowSeconds) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.defaultConfig = new Config();
+        this.defaultConfig.setReplenishRate(defaultReplenishRate);
+        this.defaultConfig.setBurstCapacity(defaultBurstCapacity);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(idleEvictionSeconds, TimeUnit.SECONDS)
+                .build();
+        this.stripes = stripes;
+        this.meterRegistry = meterRegistry;
+        this.redisTemplate = syncEnabled ? redisTemplate.getIfAvailable() : null;
+        this.syncWindowMs = TimeUnit.SECONDS.toMillis(syncWindowSeconds);
+        meterRegistry.gauge("gateway.ratelimit.local.keys", buckets, Cache::estimatedSize);
+
+        if (this.redisTemplate != null) {
+            this.sync = Flux.interval(Duration.ofMillis(syncIntervalMs))
+                    .onBackpressureDrop()
+                    .concatMap(tick -> syncWithRedis()
+                            .onErrorResume(e -> {
+                                log.warn("Rate limiter sync with Redis failed: {}", e.getMessage());
+                                return Mono.empty();
+                            }))
+                    .subscribe();
+        } else {
+            this.sync = null;
+        }
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        String key = routeId + ":" + id;
+        TokenBucket bucket = buckets.getIfPresent(key);
+        if (bucket == null) {
+            bucket = buckets.get(key, k -> new TokenBucket(config.getReplenishRate(), config.getBurstCapacity(),
+                    config.getRequestedTokens(), stripes));
+        }
+        long remaining = bucket.tryConsume(config.getRequestedTokens());
+        boolean allowed = remaining >= 0;
+        counter(routeId, allowed).increment();
+        return Mono.just(new Response(allowed, headers(config, Math.max(remaining, 0))));
+    }
+
+    private Config loadConfiguration(String routeId) {
+        Config routeConfig = getConfig().get(routeId);
+        if (routeConfig == null) {
+            routeConfig = getConfig().getOrDefault(RouteDefinitionRouteLocator.DEFAULT_FILTERS, defaultConfig);
+        }
+        return routeConfig;
+    }
+
+    private Counter counter(String routeId, boolean allowed) {
+        return meterRegistry.counter("gateway.ratelimit.local.requests",
+                "route", routeId, "result", allowed ? "allowed" : "denied");
+    }
+
+    private static Map<String, String> headers(Config config, long remaining) {
+        return Map.of(
+                RedisRateLimiter.REMAINING_HEADER, Long.toString(remaining),
+                RedisRateLimiter.REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                RedisRateLimiter.BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+                RedisRateLimiter.REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()));
+    }
+
+    private Mono<Void> syncWithRedis() {
+        long window = System.currentTimeMillis() / syncWindowMs;
+        return Flux.fromIterable(buckets.asMap().entrySet())
+                .flatMap(entry -> {
+                    TokenBucket bucket = entry.getValue();
+                    long delta = bucket.takeUnsynced();
+                    // buckets idle for a whole window stop syncing until they are used again
+                    if (delta == 0 && bucket.syncWindow != window) {
+                        return Mono.empty();
+                    }
+                    String redisKey = "rate_limiter.local.{" + entry.getKey() + "}." + window;
+                    Mono<Long> total = redisTemplate.opsForValue().increment(redisKey, delta);
+                    if (delta > 0) {
+                        total = total.flatMap(value -> redisTemplate.expire(redisKey, Duration.ofMillis(2 * syncWindowMs)).thenReturn(value));
+                    }
+                    return total.doOnNext(value -> bucket.applyRemote(window, delta, value));
+                }, 64)
+                .then();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sync != null) {
+            sync.dispose();
+        }
+    }
+
+    /**
+     * Token bucket split into stripes, each holding an equal share of the capacity and refill rate,
+     * so that concurrent requests for a hot key mostly CAS on different cache lines. A request takes
+     * tokens from its thread's stripe and only falls back to the others when that one is empty, so
+     * the bucket as a whole still admits its full burst. Each stripe is a single long, the time at
+     * which it was last empty (GCRA), so consuming allocates nothing.
+     */
+    static final class TokenBucket {
+        // longs per stripe, so that stripes sit on separate cache lines
+        private static final int PADDING = 8;
+        private static final int UNSYNCED = 1;
+
+        private final int stripes;
+        private final long nanosPerToken;
+        private final long burstNanos;
+        // per stripe: the time the stripe was empty, then tokens consumed and not yet pushed to Redis
+        private final AtomicLongArray slots;
+        // only touched by the sync task, which handles one bucket at a time
+        long syncWindow = -1;
+        private long pushed;
+        private long remoteSeen;
+
+        TokenBucket(int replenishRate, int capacity, int requestedTokens, int maxStripes) {
+            this.stripes = stripeCount(capacity, requestedTokens, maxStripes);
+            // each stripe refills at replenishRate / stripes and holds capacity / stripes tokens
+            this.nanosPerToken = Math.max(1, Math.round(1e9 * stripes / replenishRate));
+            this.burstNanos = (long) (capacity / stripes) * nanosPerToken;
+            this.slots = new AtomicLongArray(stripes * PADDING);
+            long full = System.nanoTime() - burstNanos;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                slots.set(stripe * PADDING, full);
+            }
+        }
+
+        /**
+         * The most stripes, up to {@code maxStripes}, that split the capacity evenly and still
+         * hold a whole request each.
+         */
+        static int stripeCount(int capacity, int requestedTokens, int maxStripes) {
+            for (int stripes = Math.min(maxStripes, capacity); stripes > 1; stripes--) {
+                if (capacity % stripes == 0 && capacity / stripes >= requestedTokens) {
+                    return stripes;
+                }
+            }
+            return 1;
+        }
+
+        int stripes() {
+            return stripes;
+        }
+
+        /**
+         * @return the tokens left after taking {@code requested}, or -1 if there were not enough
+         */
+        long tryConsume(int requested) {
+            long now = System.nanoTime();
+            long cost = requested * nanosPerToken;
+            int home = (int) (Thread.currentThread().threadId() % stripes);
+            for (int i = 0; i < stripes; i++) {
+                int slot = (home + i) % stripes * PADDING;
+                if (take(slot, cost, now)) {
+                    slots.addAndGet(slot + UNSYNCED, requested);
+                    return available(now);
+                }
+            }
+            return -1;
+        }
+
+        private boolean take(int slot, long cost, long now) {
+            while (true) {
+                long emptyAt = slots.get(slot);
+                // a stripe never holds more than its share of the burst
+                long next = Math.max(emptyAt, now - burstNanos) + cost;
+                if (next - now > 0) {
+                    return false;
+                }
+                if (slots.compareAndSet(slot, emptyAt, next)) {
+                    return true;
+                }
+            }
+        }
+
+        private long available(long now) {
+            long tokens = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                long idle = now - slots.get(stripe * PADDING);
+                tokens += Math.min(idle, burstNanos) / nanosPerToken;
+            }
+            return tokens;
+        }
+
+        /**
+         * @return the tokens consumed since the last call
+         */
+        long takeUnsynced() {
+            long consumed = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                consumed += slots.getAndSet(stripe * PADDING + UNSYNCED, 0);
+            }
+            return consumed;
+        }
+
+        private void drain(long tokens) {
+            long now = System.nanoTime();
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                long share = tokens / stripes + (stripe < tokens % stripes ? 1 : 0);
+                int slot = stripe * PADDING;
+                while (share > 0) {
+                    long emptyAt = slots.get(slot);
+                    // draining stops at empty, it does not put the stripe into debt
+                    long next = Math.min(now, Math.max(emptyAt, now - burstNanos) + share * nanosPerToken);
+                    if (next - emptyAt <= 0 || slots.compareAndSet(slot, emptyAt, next)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param total the window's counter after adding {@code delta}, summed over all instances
+         */
+        void applyRemote(long window, long delta, long total) {
+            if (window != syncWindow) {
+                syncWindow = window;
+                pushed = 0;
+                remoteSeen = 0;
+            }
+            pushed += delta;
+            long remote = total - pushed;
+            if (remote > remoteSeen) {
+                drain(remote - remoteSeen);
+                remoteSeen = remote;
+            }
+        }
+    }
+
+    public static class Config {
+        private int replenishRate = 5;
+        private int burstCapacity = 5;
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public void setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+        }
+    }
+}
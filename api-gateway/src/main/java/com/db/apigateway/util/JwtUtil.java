@@ -0,0 +1,62 @@
+package com.db.apigateway.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Verifies tokens issued by auth-service's JwtUtil, using the same base64 HMAC secret
+ * ({@code jwt.secret}). Expiry and not-before are checked with {@code jwt.clock-skew-seconds} of
+ * tolerance; the subject and role claims must be present, and the role must be one of
+ * {@code jwt.allowed-roles} when that is set.
+ */
+@Component
+public class JwtUtil {
+    private final JwtParser parser;
+    private final Set<String> allowedRoles;
+
+    public JwtUtil(@Value("${jwt.secret:}") String secretKey,
+                   @Value("${jwt.clock-skew-seconds:30}") long clockSkewSeconds,
+                   @Value("${jwt.allowed-roles:}") Set<String> allowedRoles) {
+        if (secretKey.isBlank()) {
+            this.parser = null;
+        } else {
+            byte[] keyBytes = Base64
+                    .getDecoder()
+                    .decode(secretKey.getBytes(StandardCharsets.UTF_8));
+            this.parser = Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(keyBytes))
+                    .clockSkewSeconds(clockSkewSeconds)
+                    .build();
+        }
+        this.allowedRoles = allowedRoles;
+    }
+
+    public boolean isConfigured() {
+        return parser != null;
+    }
+
+    /**
+     * @return the verified claims
+     * @throws JwtException if the token is malformed, has a bad signature, is expired or fails a claim check
+     */
+    public Claims parseToken(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getSubject() == null || claims.getSubject().isBlank()) {
+            throw new JwtException("JWT has no subject");
+        }
+        String role = claims.get("role", String.class);
+        if (role == null || (!allowedRoles.isEmpty() && !allowedRoles.contains(role))) {
+            throw new JwtException("JWT role is not allowed");
+        }
+        return claims;
+    }
+}
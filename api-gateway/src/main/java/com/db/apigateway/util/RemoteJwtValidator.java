@@ -0,0 +1,148 @@
+package com.db.apigateway.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates tokens with auth-service {@code /validate} and caches the outcome under the token's
+ * SHA-256, so the raw token is never held as a key. Accepted tokens are cached for at most
+ * {@code jwt.cache.max-ttl-seconds} and never past their {@code exp}; rejected ones for
+ * {@code jwt.cache.negative-ttl-seconds}. Concurrent lookups of an uncached token share one
+ * upstream call. Upstream errors other than 401 are not cached.
+ */
+@Component
+public class RemoteJwtValidator {
+    private record Validation(boolean valid, long ttlNanos) {
+    }
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final long maxTtlSeconds;
+    private final long negativeTtlSeconds;
+    private final AsyncCache<String, Validation> cache;
+
+    public RemoteJwtValidator(WebClient.Builder webClientBuilder,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${auth.service.url}") String authServiceUrl,
+                              @Value("${jwt.cache.maximum-size:100000}") long maximumSize,
+                              @Value("${jwt.cache.max-ttl-seconds:300}") long maxTtlSeconds,
+                              @Value("${jwt.cache.negative-ttl-seconds:10}") long negativeTtlSeconds) {
+        this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.negativeTtlSeconds = negativeTtlSeconds;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Validation>() {
+                    @Override
+                    public long expireAfterCreate(String key, Validation value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Validation value, long currentTime, long currentDuration) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Validation value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.validation");
+    }
+
+    /**
+     * @param token the bearer token, without the "Bearer " prefix
+     * @return whether auth-service accepts the token
+     */
+    public Mono<Boolean> validate(String token) {
+        long ttlSeconds = Math.min(maxTtlSeconds, secondsUntilExpiry(token));
+        if (ttlSeconds <= 0) {
+            return Mono.just(false);
+        }
+        return Mono.defer(() -> Mono.fromFuture(
+                cache.get(sha256(token), (key, executor) -> callAuthService(token, ttlSeconds).toFuture()),
+                // a cancelled caller must not cancel the call other requests are waiting on
+                true))
+                .map(Validation::valid);
+    }
+
+    private Mono<Validation> callAuthService(String token, long ttlSeconds) {
+        return webClient.get()
+                .uri("/validate")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> new Validation(true, TimeUnit.SECONDS.toNanos(ttlSeconds)))
+                .onErrorResume(WebClientResponseException.Unauthorized.class, e ->
+                        Mono.just(new Validation(false, TimeUnit.SECONDS.toNanos(negativeTtlSeconds))))
+                .doOnSuccess(validation -> meterRegistry.counter("jwt.validation.upstream.calls",
+                        "result", validation.valid() ? "valid" : "invalid").increment())
+                .doOnError(e -> meterRegistry.counter("jwt.validation.upstream.calls",
+                        "result", "error").increment());
+    }
+
+    /**
+     * Reads {@code exp} from the unverified payload; it only bounds how long auth-service's answer
+     * is cached. Tokens without a readable {@code exp} get the maximum TTL.
+     */
+    private long secondsUntilExpiry(String token) {
+        JsonNode exp = readPayload(token).get("exp");
+        if (exp == null || !exp.canConvertToLong()) {
+            return maxTtlSeconds;
+        }
+        return exp.asLong() - System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * Decodes the payload without checking the signature; only trust it once {@link #validate}
+     * has accepted the token.
+     *
+     * @return the payload claims, or an empty node when the token is malformed
+     */
+    public JsonNode readPayload(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return objectMapper.createObjectNode();
+        }
+        try {
+            JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            return payload != null && payload.isObject() ? payload : objectMapper.createObjectNode();
+        } catch (IOException | IllegalArgumentException e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.db.apigateway.ratelimit;
+
+import com.db.apigateway.ratelimit.LocalRateLimiter.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static int consumeAll(TokenBucket bucket, int requested) {
+        int granted = 0;
+        while (bucket.tryConsume(requested) >= 0) {
+            granted++;
+        }
+        return granted;
+    }
+
+    @Test
+    void stripeCountSplitsTheCapacityEvenly() {
+        assertThat(TokenBucket.stripeCount(10, 1, 8)).isEqualTo(5);
+        assertThat(TokenBucket.stripeCount(8, 1, 8)).isEqualTo(8);
+        assertThat(TokenBucket.stripeCount(64, 1, 8)).isEqualTo(8);
+        assertThat(TokenBucket.stripeCount(7, 1, 8)).isEqualTo(7);
+    }
+
+    @Test
+    void stripeCountKeepsAWholeRequestPerStripe() {
+        assertThat(TokenBucket.stripeCount(10, 3, 8)).isEqualTo(2);
+        assertThat(TokenBucket.stripeCount(10, 6, 8)).isEqualTo(1);
+        assertThat(TokenBucket.stripeCount(5, 5, 8)).isEqualTo(1);
+    }
+
+    @Test
+    void stripeCountFallsBackToOneStripe() {
+        assertThat(TokenBucket.stripeCount(13, 1, 8)).isEqualTo(1);
+        assertThat(TokenBucket.stripeCount(100, 1, 1)).isEqualTo(1);
+        assertThat(TokenBucket.stripeCount(1, 1, 8)).isEqualTo(1);
+    }
+
+    @Test
+    void startsFullAndReportsTheTokensLeft() {
+        TokenBucket bucket = new TokenBucket(1, 10, 1, 1);
+
+        assertThat(bucket.tryConsume(1)).isEqualTo(9);
+        assertThat(bucket.tryConsume(4)).isEqualTo(5);
+    }
+
+    @Test
+    void admitsTheWholeBurstAcrossStripesFromOneThread() {
+        // one token every five seconds per stripe, so nothing refills during the test
+        TokenBucket bucket = new TokenBucket(1, 10, 1, 8);
+        assertThat(bucket.stripes()).isEqualTo(5);
+
+        // the home stripe empties after two requests; the rest come from the other stripes
+        assertThat(consumeAll(bucket, 1)).isEqualTo(10);
+        assertThat(bucket.tryConsume(1)).isEqualTo(-1);
+    }
+
+    @Test
+    void multiTokenRequestsAreNotSplitAcrossStripes() {
+        TokenBucket bucket = new TokenBucket(1, 10, 2, 8);
+        assertThat(bucket.stripes()).isEqualTo(5);
+
+        assertThat(consumeAll(bucket, 2)).isEqualTo(5);
+        assertThat(bucket.tryConsume(1)).isEqualTo(-1);
+    }
+
+    @Test
+    void refillsAtTheReplenishRateUpToTheCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 10, 1, 2);
+        assertThat(consumeAll(bucket, 1)).isGreaterThanOrEqualTo(10);
+
+        // 200 tokens' worth of time, but a stripe never holds more than its share of the burst
+        Thread.sleep(200);
+
+        int refilled = consumeAll(bucket, 1);
+        assertThat(refilled).isBetween(10, 12);
+    }
+
+    @Test
+    void concurrentConsumersNeverExceedTheBurst() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 1000, 1, 8);
+        assertThat(bucket.stripes()).isEqualTo(8);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int granted = 0;
+                    for (int attempt = 0; attempt < 200; attempt++) {
+                        if (bucket.tryConsume(1) >= 0) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            start.countDown();
+
+            int granted = 0;
+            for (Future<Integer> result : results) {
+                granted += result.get();
+            }
+            assertThat(granted).isEqualTo(1000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void takeUnsyncedReturnsConsumedTokensOnce() {
+        TokenBucket bucket = new TokenBucket(1, 10, 1, 8);
+        bucket.tryConsume(1);
+        bucket.tryConsume(2);
+        bucket.tryConsume(1);
+
+        assertThat(bucket.takeUnsynced()).isEqualTo(4);
+        assertThat(bucket.takeUnsynced()).isZero();
+    }
+
+    @Test
+    void remoteConsumptionDrainsTheLocalBucket() {
+        TokenBucket bucket = new TokenBucket(1, 10, 1, 8);
+
+        bucket.applyRemote(1, 0, 4);
+
+        assertThat(consumeAll(bucket, 1)).isEqualTo(6);
+    }
+
+    @Test
+    void ownConsumptionIsNotDrainedTwice() {
+        TokenBucket bucket = new TokenBucket(1, 10, 1, 8);
+        bucket.tryConsume(1);
+        bucket.tryConsume(1);
+
+        // the window total only holds this instance's own two tokens
+        bucket.applyRemote(1, bucket.takeUnsynced(), 2);
+        bucket.applyRemote(1, 0, 2);
+
+        assertThat(consumeAll(bucket, 1)).isEqualTo(8);
+    }
+
+    @Test
+    void drainingStopsAtEmpty() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, 10, 1, 1);
+
+        bucket.applyRemote(1, 0, 1_000_000);
+        assertThat(bucket.tryConsume(1)).isEqualTo(-1);
+
+        // an empty bucket refills as usual instead of paying back the excess
+        Thread.sleep(150);
+        assertThat(bucket.tryConsume(1)).isGreaterThanOrEqualTo(0);
+    }
+}
@@ -55,6 +55,7 @@ tasks.withType<JavaCompile> {
 
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     runtimeOnly("io.grpc:grpc-netty-shaded:1.69.0")
@@ -63,9 +64,16 @@ dependencies {
     compileOnly("org.apache.tomcat:annotations-api:6.0.53")
     implementation("com.google.protobuf:protobuf-java:4.29.1")
     implementation("net.devh:grpc-spring-boot-starter:3.1.0.RELEASE")
+    runtimeOnly("org.postgresql:postgresql")
+    runtimeOnly("com.h2database:h2")
 
     //kafka
     implementation("org.springframework.kafka:spring-kafka")
+
+    //actuator
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("io.micrometer:micrometer-registry-prometheus")
+    implementation("io.micrometer:micrometer-java21")
 }
 
 tasks.withType<Test> {
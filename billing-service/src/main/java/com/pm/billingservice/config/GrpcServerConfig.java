@@ -0,0 +1,23 @@
+package com.pm.billingservice.config;
+
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+public class GrpcServerConfig {
+
+    /**
+     * Runs gRPC service methods on virtual threads when spring.threads.virtual.enabled is set,
+     * instead of the default cached platform-thread pool.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public GrpcServerConfigurer virtualThreadGrpcServerConfigurer() {
+        return serverBuilder -> serverBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -3,24 +3,125 @@ package com.pm.billingservice.grpc;
 import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc.BillingServiceImplBase;
+import com.pm.billingservice.service.BillingAccountService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @GrpcService
 public class BillingGrpcService extends BillingServiceImplBase {
     private static final Logger log = LoggerFactory.getLogger(BillingGrpcService.class);
+    private final BillingAccountService billingAccountService;
+    private final int streamWindow;
+
+    public BillingGrpcService(BillingAccountService billingAccountService,
+                              @Value("${billing.accounts.stream-window:64}") int streamWindow) {
+        this.billingAccountService = billingAccountService;
+        this.streamWindow = streamWindow;
+    }
 
     @Override
     public void createBillingAccount(BillingRequest request, StreamObserver<BillingResponse> responseObserver) {
         log.info("Received request for creating billing account: {}", request.toString());
-        //Business logic - e.g save to database, perform calculates etc
-        BillingResponse response = BillingResponse.newBuilder()
-                .setAccountId("12345")
-                .setStatus("ACTIVE")
-                .build();
-        responseObserver.onNext(response);
-        responseObserver.onCompleted();
+        createAccount(request).whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                log.error("Failed to create billing account for patient {}", request.getPatientId(), throwable);
+                responseObserver.onError(Status.INTERNAL.withDescription("Failed to create billing account").asRuntimeException());
+                return;
+            }
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        });
+    }
+
+    /**
+     * Streaming variant of {@link #createBillingAccount}. At most {@code billing.accounts.stream-window}
+     * requests are in progress per stream: the next message is requested only after a response has
+     * been written, and only while the outbound side is ready, so a client that stops reading
+     * responses also stops being able to send requests. A failing item is answered with status
+     * FAILED instead of terminating the stream.
+     */
+    @Override
+    public StreamObserver<BillingRequest> createBillingAccounts(StreamObserver<BillingResponse> responseObserver) {
+        ServerCallStreamObserver<BillingResponse> serverObserver = (ServerCallStreamObserver<BillingResponse>) responseObserver;
+        serverObserver.disableAutoRequest();
+        // requests the client may send once the outbound side is ready; guarded by serverObserver
+        int[] owed = {streamWindow};
+        serverObserver.setOnReadyHandler(() -> {
+            synchronized (serverObserver) {
+                if (serverObserver.isReady() && owed[0] > 0) {
+                    serverObserver.request(owed[0]);
+                    owed[0] = 0;
+                }
+            }
+        });
+
+        // accounts are persisted in batches, so responses complete out of band and may arrive out of order
+        AtomicInteger outstanding = new AtomicInteger(1);
+        Runnable release = () -> {
+            if (outstanding.decrementAndGet() == 0) {
+                synchronized (serverObserver) {
+                    if (!serverObserver.isCancelled()) {
+                        serverObserver.onCompleted();
+                    }
+                }
+            }
+        };
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(BillingRequest request) {
+                outstanding.incrementAndGet();
+                createAccount(request).whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        log.error("Failed to create billing account for patient {}", request.getPatientId(), throwable);
+                        response = BillingResponse.newBuilder()
+                                .setPatientId(request.getPatientId())
+                                .setAccountId("")
+                                .setStatus("FAILED")
+                                .build();
+                    }
+                    synchronized (serverObserver) {
+                        if (!serverObserver.isCancelled()) {
+                            serverObserver.onNext(response);
+                            // the finished item frees a slot; hand it back now or when the transport drains
+                            if (serverObserver.isReady()) {
+                                serverObserver.request(1 + owed[0]);
+                                owed[0] = 0;
+                            } else {
+                                owed[0]++;
+                            }
+                        }
+                    }
+                    release.run();
+                });
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                log.warn("Billing account stream cancelled by client: {}", throwable.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                release.run();
+            }
+        };
+    }
+
+    private CompletableFuture<BillingResponse> createAccount(BillingRequest request) {
+        return billingAccountService.createIfAbsent(request.getPatientId(), request.getName(), request.getEmail())
+                .thenApply(accountId -> BillingResponse.newBuilder()
+                        .setPatientId(request.getPatientId())
+                        .setAccountId(accountId.toString())
+                        .setStatus("ACTIVE")
+                        .build());
     }
 }
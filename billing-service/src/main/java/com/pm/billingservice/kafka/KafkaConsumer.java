@@ -2,24 +2,95 @@ package com.pm.billingservice.kafka;
 
 import billing.events.BillingAccountEvent;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.billingservice.service.BillingAccountService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drains the billing-account topic in batches. Each container thread owns a subset of the
+ * partitions ({@code billing.kafka.concurrency} should match the partition count), and records are
+ * submitted in offset order, so events for one patient key are applied in order. The container
+ * commits a batch's offsets only after this listener returns, which is after every account in it
+ * has been persisted.
+ */
 @Service
 public class KafkaConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
+    private final BillingAccountService billingAccountService;
+    private final Counter processed;
+    private final Counter invalid;
+    private final Timer batchTimer;
+    // timestamp of the oldest record each in-flight batch has not finished, per partition
+    private final Map<TopicPartition, Long> oldestUnprocessed = new ConcurrentHashMap<>();
+
+    public KafkaConsumer(BillingAccountService billingAccountService, MeterRegistry meterRegistry) {
+        this.billingAccountService = billingAccountService;
+        this.processed = meterRegistry.counter("billing.kafka.records.processed");
+        this.invalid = meterRegistry.counter("billing.kafka.records.invalid");
+        this.batchTimer = Timer.builder("billing.kafka.batch.latency")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("billing.kafka.oldest.unprocessed.age.ms", oldestUnprocessed, partitions ->
+                partitions.values().stream()
+                        .mapToLong(timestamp -> System.currentTimeMillis() - timestamp)
+                        .max()
+                        .orElse(0));
+    }
 
-    @KafkaListener(topics = "billing-account", groupId = "billing-service")
-    public void consumeEvent(byte[] event) {
+    @KafkaListener(topics = "billing-account", groupId = "billing-service", batch = "true",
+            concurrency = "${billing.kafka.concurrency:3}")
+    public void consumeEvents(List<ConsumerRecord<String, byte[]>> records) {
+        records.forEach(record -> oldestUnprocessed.merge(
+                new TopicPartition(record.topic(), record.partition()), record.timestamp(), Math::min));
         try {
-            BillingAccountEvent billingAccountEvent = BillingAccountEvent.parseFrom(event);
-            log.info("Received billing account event: {}", billingAccountEvent.toString());
-            // check if the patient billing account doesn't exist, if not then create it
-        } catch (InvalidProtocolBufferException e) {
-            log.error("Error parsing BillingAccountEvent: {}", e.getMessage());
+            batchTimer.record(() -> process(records));
+        } finally {
+            records.forEach(record -> oldestUnprocessed.remove(new TopicPartition(record.topic(), record.partition())));
+        }
+        processed.increment(records.size());
+        log.debug("Processed {} billing account events", records.size());
+    }
+
+    private void process(List<ConsumerRecord<String, byte[]>> records) {
+        List<CompletableFuture<UUID>> accounts = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                BillingAccountEvent billingAccountEvent = BillingAccountEvent.parseFrom(record.value());
+                // replayed events for an existing patient are answered from the in-memory index
+                accounts.add(billingAccountService.createIfAbsent(
+                        billingAccountEvent.getPatientId(),
+                        billingAccountEvent.getName(),
+                        billingAccountEvent.getEmail()));
+            } catch (InvalidProtocolBufferException e) {
+                invalid.increment();
+                accounts.add(CompletableFuture.completedFuture(null));
+                log.error("Error parsing BillingAccountEvent at {}-{}@{}: {}", record.topic(), record.partition(), record.offset(), e.getMessage());
+            }
+        }
+        for (int i = 0; i < accounts.size(); i++) {
+            try {
+                accounts.get(i).join();
+            } catch (CompletionException e) {
+                // offsets before the failed record are committed, the rest of the batch is redelivered
+                throw new BatchListenerFailedException("Failed to persist billing account", e.getCause(), i);
+            }
         }
     }
 }
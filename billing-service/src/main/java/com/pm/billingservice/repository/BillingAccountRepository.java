@@ -0,0 +1,14 @@
+package com.pm.billingservice.repository;
+
+import com.pm.billingservice.model.BillingAccount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BillingAccountRepository extends JpaRepository<BillingAccount, UUID> {
+    List<BillingAccount> findByPatientIdIn(Collection<String> patientIds);
+}
@@ -0,0 +1,237 @@
+package com.pm.billingservice.service;
+
+import com.pm.billingservice.model.BillingAccount;
+import com.pm.billingservice.repository.BillingAccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Creates at most one billing account per patient, for both the gRPC and the Kafka path.
+ * <p>
+ * Existing accounts are answered from an in-memory patientId index loaded at startup, so replayed
+ * requests never reach the database. Concurrent requests for the same new patient share one
+ * pending future. New accounts are written by a single writer thread in JDBC batches of up to
+ * {@code billing.accounts.batch-size}, waiting at most {@code billing.accounts.max-batch-delay-ms}
+ * for a batch to fill (group commit). The unique patient_id constraint resolves races with other
+ * billing-service instances.
+ */
+@Service
+public class BillingAccountService {
+    private static final Logger log = LoggerFactory.getLogger(BillingAccountService.class);
+    private static final String ACTIVE = "ACTIVE";
+    private static final String INSERT_ACCOUNT = """
+            INSERT INTO billing_account (id, patient_id, name, email, status, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private record PendingAccount(UUID id, String patientId, String name, String email, CompletableFuture<UUID> future) {
+    }
+
+    private final BillingAccountRepository billingAccountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long maxBatchDelayNanos;
+    private final ConcurrentHashMap<String, UUID> accountsByPatient = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PendingAccount> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingAccount> queue = new LinkedBlockingQueue<>();
+    private final Counter created;
+    private final Counter deduplicated;
+    private final Timer batchTimer;
+    private volatile boolean running;
+    private Thread writer;
+
+    public BillingAccountService(BillingAccountRepository billingAccountRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${billing.accounts.batch-size:500}") int batchSize,
+                                 @Value("${billing.accounts.max-batch-delay-ms:5}") long maxBatchDelayMs) {
+        this.billingAccountRepository = billingAccountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+        this.created = meterRegistry.counter("billing.accounts.created");
+        this.deduplicated = meterRegistry.counter("billing.accounts.deduplicated");
+        this.batchTimer = Timer.builder("billing.accounts.batch.latency")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("billing.accounts.indexed", List.of(), accountsByPatient);
+        meterRegistry.gaugeCollectionSize("billing.accounts.queued", List.of(), queue);
+    }
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT patient_id, id FROM billing_account");
+            statement.setFetchSize(10_000);
+            return statement;
+        }, resultSet -> {
+            accountsByPatient.put(resultSet.getString(1), resultSet.getObject(2, UUID.class));
+        }));
+        log.info("Loaded {} billing accounts into the patient index", accountsByPatient.size());
+
+        running = true;
+        writer = new Thread(this::runWriter, "billing-account-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return the id of the patient's billing account, existing or newly created
+     */
+    public CompletableFuture<UUID> createIfAbsent(String patientId, String name, String email) {
+        UUID existing = accountsByPatient.get(patientId);
+        if (existing != null) {
+            deduplicated.increment();
+            return CompletableFuture.completedFuture(existing);
+        }
+        PendingAccount account = new PendingAccount(UUID.randomUUID(), patientId, name, email, new CompletableFuture<>());
+        PendingAccount inFlight = pending.putIfAbsent(patientId, account);
+        if (inFlight != null) {
+            deduplicated.increment();
+            return inFlight.future();
+        }
+        // the writer may have indexed this patient between the lookup and putIfAbsent
+        existing = accountsByPatient.get(patientId);
+        if (existing != null) {
+            pending.remove(patientId, account);
+            deduplicated.increment();
+            return CompletableFuture.completedFuture(existing);
+        }
+        if (!running) {
+            pending.remove(patientId, account);
+            return CompletableFuture.failedFuture(new IllegalStateException("Billing account store is shut down"));
+        }
+        queue.add(account);
+        return account.future();
+    }
+
+    private void runWriter() {
+        List<PendingAccount> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAccount first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingAccount next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutting down: persist what was taken, then drain the rest of the queue
+            }
+            if (!batch.isEmpty()) {
+                batchTimer.record(() -> persist(batch));
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<PendingAccount> batch) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_ACCOUNT, batch, batch.size(), (statement, account) -> {
+                        statement.setObject(1, account.id());
+                        statement.setString(2, account.patientId());
+                        statement.setString(3, account.name());
+                        statement.setString(4, account.email());
+                        statement.setString(5, ACTIVE);
+                        statement.setTimestamp(6, now);
+                    }));
+            batch.forEach(account -> complete(account, account.id()));
+            created.increment(batch.size());
+        } catch (DuplicateKeyException e) {
+            // another billing-service instance created some of these accounts
+            persistIndividually(batch, now);
+        } catch (RuntimeException e) {
+            log.error("Failed to persist {} billing accounts", batch.size(), e);
+            batch.forEach(account -> fail(account, e));
+        }
+    }
+
+    private void persistIndividually(List<PendingAccount> batch, Timestamp now) {
+        List<PendingAccount> conflicts = new ArrayList<>();
+        for (PendingAccount account : batch) {
+            try {
+                jdbcTemplate.update(INSERT_ACCOUNT, account.id(), account.patientId(), account.name(), account.email(), ACTIVE, now);
+                complete(account, account.id());
+                created.increment();
+            } catch (DuplicateKeyException e) {
+                conflicts.add(account);
+            } catch (RuntimeException e) {
+                fail(account, e);
+            }
+        }
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        Map<String, UUID> existing = billingAccountRepository
+                .findByPatientIdIn(conflicts.stream().map(PendingAccount::patientId).toList())
+                .stream()
+                .collect(Collectors.toMap(BillingAccount::getPatientId, BillingAccount::getId, (first, second) -> first));
+        for (PendingAccount account : conflicts) {
+            UUID accountId = existing.get(account.patientId());
+            if (accountId != null) {
+                deduplicated.increment();
+                complete(account, accountId);
+            } else {
+                fail(account, new IllegalStateException("Billing account for patient " + account.patientId() + " conflicted but was not found"));
+            }
+        }
+    }
+
+    private void complete(PendingAccount account, UUID accountId) {
+        accountsByPatient.put(account.patientId(), accountId);
+        pending.remove(account.patientId(), account);
+        account.future().complete(accountId);
+    }
+
+    private void fail(PendingAccount account, Throwable throwable) {
+        pending.remove(account.patientId(), account);
+        account.future().completeExceptionally(throwable);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
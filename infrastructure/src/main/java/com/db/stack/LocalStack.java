@@ -32,9 +32,11 @@ public class LocalStack extends Stack {
 
         DatabaseInstance authServiceDb = createDatabaseInstance("AuthServiceDB", "auth-service-db");
         DatabaseInstance patientServiceDb = createDatabaseInstance("PatientServiceDB", "patient-service-db");
+        DatabaseInstance billingServiceDb = createDatabaseInstance("BillingServiceDB", "billing-service-db");
 
         CfnHealthCheck authServiceDbHealthCheck = createDbHealthCheck(authServiceDb, "AuthServiceDBHealthCheck");
         CfnHealthCheck patientServiceDbHealthCheck = createDbHealthCheck(patientServiceDb, "PatientServiceDBHealthCheck");
+        CfnHealthCheck billingServiceDbHealthCheck = createDbHealthCheck(billingServiceDb, "BillingServiceDBHealthCheck");
 
         CfnCluster mskCluster = createMskCluster();
 
@@ -54,8 +56,10 @@ public class LocalStack extends Stack {
                 "BillingService",
                 "billing-service",
                 List.of(4001, 9001),
-                null,
+                billingServiceDb,
                 null);
+        billingService.getNode().addDependency(billingServiceDbHealthCheck);
+        billingService.getNode().addDependency(billingServiceDb);
 
         FargateService analyticsService = createFargateService(
                 "AnalyticsService",
@@ -74,7 +78,8 @@ public class LocalStack extends Stack {
                 patientServiceDb,
                 Map.of(
                         "BILLING_SERVICE_ADDRESS", "billing-service.patient-management.local",
-                        "BILLING_SERVICE_GRPC_PORT", "9001"
+                        "BILLING_SERVICE_GRPC_PORT", "9001",
+                        "PATIENT_SEARCH_ENGINE", "pg-trgm"
                 ));
         patientService.getNode().addDependency(patientServiceDbHealthCheck);
         patientService.getNode().addDependency(patientServiceDb);
@@ -218,7 +223,7 @@ public class LocalStack extends Stack {
         }
 
         if (db != null) {
-            containerEnvVars.put("SPRING_DATASOURCE_URL", "jdbc:postgresql://%s:%s/%s-db".formatted(
+            containerEnvVars.put("SPRING_DATASOURCE_URL", "jdbc:postgresql://%s:%s/%s-db?reWriteBatchedInserts=true".formatted(
                     db.getDbInstanceEndpointAddress(),
                     db.getDbInstanceEndpointPort(),
                     imageName
@@ -262,6 +267,7 @@ public class LocalStack extends Stack {
                 .environment(Map.of(
                         "SPRING_PROFILES_ACTIVE", "prod",
                         "AUTH_SERVICE_URL", "http://auth-service.patient-management.local:4005",
+                        "JWT_SECRET", "nQO8R0Wc9fLhZ5NkJzG/1wZ+vTCpLE4JkEt3zD4K1bY=",
                         "REDIS_HOST", elasticacheCluster.getAttrRedisEndpointAddress(),
                         "REDIS_PORT", elasticacheCluster.getAttrRedisEndpointPort()
                 ))
@@ -68,6 +68,7 @@ dependencies {
     runtimeOnly("io.grpc:grpc-netty-shaded:1.69.0")
     implementation("io.grpc:grpc-protobuf:1.69.0")
     implementation("io.grpc:grpc-stub:1.69.0")
+    implementation("io.grpc:grpc-services:1.69.0")
     compileOnly("org.apache.tomcat:annotations-api:6.0.53")
     implementation("com.google.protobuf:protobuf-java:4.29.1")
     implementation("net.devh:grpc-spring-boot-starter:3.1.0.RELEASE")
@@ -79,6 +80,9 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-cache")
     implementation("org.springframework.boot:spring-boot-starter-data-redis")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
+    implementation("org.lz4:lz4-java:1.8.0")
 
     //circuit breaker/resiliency
     implementation("io.github.resilience4j:resilience4j-spring-boot3:2.3.0")
@@ -86,6 +90,7 @@ dependencies {
     //actuator
     implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("io.micrometer:micrometer-registry-prometheus")
+    implementation("io.micrometer:micrometer-java21")
 
 }
 
@@ -0,0 +1,27 @@
+package com.pm.patientservice.bulk;
+
+public enum PatientDataFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    PatientDataFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public static PatientDataFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.toLowerCase().startsWith(CSV.mediaType)) {
+            return CSV;
+        }
+        return NDJSON;
+    }
+
+    public static PatientDataFormat fromName(String name) {
+        return "csv".equalsIgnoreCase(name) ? CSV : NDJSON;
+    }
+}
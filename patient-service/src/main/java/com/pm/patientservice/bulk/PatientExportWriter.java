@@ -0,0 +1,78 @@
+package com.pm.patientservice.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.model.Patient;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes patients one at a time as NDJSON or CSV, using the same field names that
+ * {@link PatientImportReader} accepts so an export can be imported again.
+ */
+public class PatientExportWriter implements Flushable {
+
+    private final Writer writer;
+    private final PatientDataFormat format;
+    private final JsonGenerator jsonGenerator;
+
+    public PatientExportWriter(OutputStream outputStream, PatientDataFormat format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.format = format;
+        if (format == PatientDataFormat.NDJSON) {
+            this.jsonGenerator = objectMapper.getFactory().createGenerator(writer);
+            this.jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        } else {
+            this.jsonGenerator = null;
+            writer.write("id,name,email,address,dateOfBirth,registeredDate\n");
+        }
+    }
+
+    public void write(Patient patient) throws IOException {
+        if (format == PatientDataFormat.NDJSON) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeStringField("id", patient.getId().toString());
+            jsonGenerator.writeStringField("name", patient.getName());
+            jsonGenerator.writeStringField("email", patient.getEmail());
+            jsonGenerator.writeStringField("address", patient.getAddress());
+            jsonGenerator.writeStringField("dateOfBirth", patient.getDateOfBirth().toString());
+            jsonGenerator.writeStringField("registeredDate", patient.getRegisteredDate().toString());
+            jsonGenerator.writeEndObject();
+            jsonGenerator.writeRaw('\n');
+            return;
+        }
+        writer.write(patient.getId().toString());
+        writer.write(',');
+        writer.write(csvValue(patient.getName()));
+        writer.write(',');
+        writer.write(csvValue(patient.getEmail()));
+        writer.write(',');
+        writer.write(csvValue(patient.getAddress()));
+        writer.write(',');
+        writer.write(patient.getDateOfBirth().toString());
+        writer.write(',');
+        writer.write(patient.getRegisteredDate().toString());
+        writer.write('\n');
+    }
+
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (jsonGenerator != null) {
+            jsonGenerator.flush();
+        }
+        writer.flush();
+    }
+}
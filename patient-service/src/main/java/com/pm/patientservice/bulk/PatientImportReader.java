@@ -0,0 +1,113 @@
+package com.pm.patientservice.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.dto.PatientRequestDTO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads patients one line at a time from an NDJSON or CSV stream, so memory use does not depend
+ * on the size of the import. CSV input needs a header row naming the {@link PatientRequestDTO}
+ * fields; quoted values may contain commas and doubled quotes but not line breaks.
+ */
+public class PatientImportReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final PatientDataFormat format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> csvColumns;
+    private long lineNumber;
+
+    public PatientImportReader(InputStream inputStream, PatientDataFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the next row, or {@code null} at the end of the stream
+     */
+    public PatientImportRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        if (format == PatientDataFormat.NDJSON) {
+            try {
+                return PatientImportRow.parsed(lineNumber, objectMapper.readValue(line, PatientRequestDTO.class));
+            } catch (JsonProcessingException e) {
+                return PatientImportRow.failed(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        if (csvColumns == null) {
+            csvColumns = new HashMap<>();
+            List<String> header = splitCsv(line);
+            for (int i = 0; i < header.size(); i++) {
+                csvColumns.put(header.get(i).trim(), i);
+            }
+            return next();
+        }
+        List<String> values = splitCsv(line);
+        PatientRequestDTO patient = new PatientRequestDTO();
+        patient.setName(column(values, "name"));
+        patient.setEmail(column(values, "email"));
+        patient.setAddress(column(values, "address"));
+        patient.setDateOfBirth(column(values, "dateOfBirth"));
+        patient.setRegisteredDate(column(values, "registeredDate"));
+        return PatientImportRow.parsed(lineNumber, patient);
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = csvColumns.get(name);
+        return index == null || index >= values.size() ? null : values.get(index);
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.pm.patientservice.bulk;
+
+import com.pm.patientservice.dto.PatientRequestDTO;
+
+/**
+ * One row of a bulk import. Either {@code patient} is set, or {@code error} explains why the row
+ * could not be parsed.
+ */
+public record PatientImportRow(long rowNumber, PatientRequestDTO patient, String error) {
+
+    public static PatientImportRow parsed(long rowNumber, PatientRequestDTO patient) {
+        return new PatientImportRow(rowNumber, patient, null);
+    }
+
+    public static PatientImportRow failed(long rowNumber, String error) {
+        return new PatientImportRow(rowNumber, null, error);
+    }
+}
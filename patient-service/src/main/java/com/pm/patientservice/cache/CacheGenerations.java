@@ -0,0 +1,181 @@
+package com.pm.patientservice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-cache generation counters stored in Redis. The current generation is part of every cache key,
+ * so bumping it after a write makes all existing entries unreachable in O(1) without KEYS/SCAN sweeps;
+ * the orphaned entries simply expire with their TTL.
+ * <p>
+ * Generations are cached locally and refreshed every {@code patient.cache.generation.refresh-interval},
+ * and bumps are broadcast on {@link #GENERATION_CHANNEL} so other instances pick them up immediately.
+ * Bumps that fail while Redis is unreachable are retried every
+ * {@code patient.cache.generation.retry-interval-ms}; until then, and while Redis cannot be read,
+ * {@link #verified} reports the generation as unknown.
+ * <p>
+ * Generations must never be reused, because an old page could still sit under a reused key. The
+ * Redis key has no TTL and must not be evicted (use {@code noeviction} or a {@code volatile-*}
+ * maxmemory policy), but a flush, failover or restart can still lose it. A missing key is therefore
+ * recreated from a timestamp rather than from 0, and a stored value below one this instance has
+ * already seen is treated as a lost key: the counter is moved past the local generation and the
+ * local L1 copies of the cache are dropped, since bumps made in the meantime may not have been seen.
+ */
+@Component("cacheGenerations")
+public class CacheGenerations implements MessageListener {
+    public static final String GENERATION_CHANNEL = "patient-service:cache-generation";
+    private static final Logger log = LoggerFactory.getLogger(CacheGenerations.class);
+    private static final String KEY_PREFIX = "cache-generation:";
+    // ARGV[1] seeds a missing key, ARGV[2] is the lowest value the key may hold before the increment
+    private static final RedisScript<Long> INCREMENT = RedisScript.of("""
+            local stored = redis.call('get', KEYS[1])
+            if not stored then
+              redis.call('set', KEYS[1], ARGV[1])
+            elseif tonumber(stored) < tonumber(ARGV[2]) then
+              redis.call('set', KEYS[1], ARGV[2])
+            end
+            return redis.call('incr', KEYS[1])
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final NearCacheInvalidator nearCacheInvalidator;
+    private final long refreshIntervalNanos;
+    private final ConcurrentMap<String, LocalGeneration> generations = new ConcurrentHashMap<>();
+    private final Set<String> pendingBumps = ConcurrentHashMap.newKeySet();
+    private final Set<String> unreadable = ConcurrentHashMap.newKeySet();
+
+    public CacheGenerations(StringRedisTemplate redisTemplate,
+                            NearCacheInvalidator nearCacheInvalidator,
+                            @Value("${patient.cache.generation.refresh-interval:5s}") Duration refreshInterval) {
+        this.redisTemplate = redisTemplate;
+        this.nearCacheInvalidator = nearCacheInvalidator;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    public long current(String cacheName) {
+        LocalGeneration local = generations.get(cacheName);
+        long now = System.nanoTime();
+        if (local != null && now - local.fetchedAt() < refreshIntervalNanos) {
+            return local.value();
+        }
+        try {
+            String stored = redisTemplate.opsForValue().get(KEY_PREFIX + cacheName);
+            long generation;
+            if (stored == null && local == null) {
+                // first use of this cache, or a key lost before this instance read it
+                generation = increment(cacheName);
+            } else if (local != null && (stored == null || Long.parseLong(stored) < local.value())) {
+                generation = recoverLostKey(cacheName, stored);
+            } else {
+                generation = advance(cacheName, Long.parseLong(stored), now);
+            }
+            unreadable.remove(cacheName);
+            return generation;
+        } catch (Exception e) {
+            log.warn("Error reading cache generation for {}: {}", cacheName, e.getMessage());
+            unreadable.add(cacheName);
+            return local != null ? local.value() : 0L;
+        }
+    }
+
+    /**
+     * @return the current generation, or empty when it may not reflect the latest writes: the last
+     * refresh from Redis failed or a bump from this instance has not reached Redis yet
+     */
+    public OptionalLong verified(String cacheName) {
+        long generation = current(cacheName);
+        if (unreadable.contains(cacheName) || pendingBumps.contains(cacheName)) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(generation);
+    }
+
+    public void bump(String cacheName) {
+        // cleared before the increment, so a bump failing concurrently stays pending
+        pendingBumps.remove(cacheName);
+        try {
+            increment(cacheName);
+        } catch (Exception e) {
+            log.error("Error bumping cache generation for {}: {}", cacheName, e.getMessage());
+            pendingBumps.add(cacheName);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${patient.cache.generation.retry-interval-ms:1000}")
+    public void retryPendingBumps() {
+        pendingBumps.forEach(this::bump);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+        if (parts.length != 2) {
+            return;
+        }
+        LocalGeneration local = generations.get(parts[0]);
+        long generation = Long.parseLong(parts[1]);
+        if (local != null && generation < local.value()) {
+            // another instance bumped a counter that went backwards
+            try {
+                recoverLostKey(parts[0], parts[1]);
+            } catch (Exception e) {
+                log.error("Error recovering cache generation for {}: {}", parts[0], e.getMessage());
+                pendingBumps.add(parts[0]);
+            }
+            return;
+        }
+        advance(parts[0], generation, System.nanoTime());
+    }
+
+    private long recoverLostKey(String cacheName, String stored) {
+        long generation = increment(cacheName);
+        log.warn("Cache generation for {} went backwards (stored {}), moved it to {} and cleared the local cache",
+                cacheName, stored, generation);
+        nearCacheInvalidator.clearLocal(cacheName);
+        return generation;
+    }
+
+    /**
+     * Increments the stored generation, first recreating a missing key from the clock and moving a
+     * regressed one up to this instance's generation, then broadcasts the result.
+     */
+    private long increment(String cacheName) {
+        LocalGeneration local = generations.get(cacheName);
+        long floor = local != null ? local.value() : 0L;
+        // microseconds since the epoch stay ahead of any counter that has seen fewer bumps than that
+        long seed = Math.max(floor, System.currentTimeMillis() * 1000);
+        Long generation = redisTemplate.execute(INCREMENT, List.of(KEY_PREFIX + cacheName),
+                String.valueOf(seed), String.valueOf(floor));
+        if (generation == null) {
+            throw new IllegalStateException("No generation returned for " + cacheName);
+        }
+        long current = advance(cacheName, generation, System.nanoTime());
+        redisTemplate.convertAndSend(GENERATION_CHANNEL, cacheName + "|" + generation);
+        return current;
+    }
+
+    // generations only move forward, whatever order refreshes and broadcasts arrive in
+    private long advance(String cacheName, long generation, long fetchedAt) {
+        return generations.merge(cacheName, new LocalGeneration(generation, fetchedAt),
+                (previous, latest) -> new LocalGeneration(Math.max(previous.value(), latest.value()), latest.fetchedAt()))
+                .value();
+    }
+
+    private record LocalGeneration(long value, long fetchedAt) {
+    }
+}
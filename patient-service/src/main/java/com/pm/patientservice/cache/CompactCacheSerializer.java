@@ -0,0 +1,102 @@
+package com.pm.patientservice.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary cache value format for caches that hold a single, known value type. Values are written as
+ * Smile without any {@code @class} metadata and LZ4-compressed above a size threshold.
+ * <p>
+ * Layout: {@code [MAGIC][format]} followed by the Smile payload, or for compressed entries
+ * {@code [MAGIC][format][uncompressed length:int]} followed by the LZ4 block. Entries that do not
+ * start with {@link #MAGIC} were written by the previous JSON serializer and are read with it
+ * until they expire.
+ */
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte FORMAT_SMILE = 1;
+    static final byte FORMAT_SMILE_LZ4 = 2;
+    private static final int HEADER_SIZE = 2;
+    private static final int COMPRESSED_HEADER_SIZE = HEADER_SIZE + Integer.BYTES;
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final ObjectMapper smileMapper;
+    private final Class<?> valueType;
+    private final RedisSerializer<Object> legacySerializer;
+    private final int compressionThreshold;
+
+    public CompactCacheSerializer(Class<?> valueType, RedisSerializer<Object> legacySerializer, int compressionThreshold) {
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        this.smileMapper = new ObjectMapper(smileFactory);
+        this.smileMapper.registerModule(new JavaTimeModule());
+        this.smileMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.valueType = valueType;
+        this.legacySerializer = legacySerializer;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        byte[] payload;
+        try {
+            payload = smileMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value as Smile", e);
+        }
+
+        if (payload.length < compressionThreshold) {
+            byte[] out = new byte[HEADER_SIZE + payload.length];
+            out[0] = MAGIC;
+            out[1] = FORMAT_SMILE;
+            System.arraycopy(payload, 0, out, HEADER_SIZE, payload.length);
+            return out;
+        }
+
+        LZ4Compressor compressor = LZ4.fastCompressor();
+        int maxCompressedLength = compressor.maxCompressedLength(payload.length);
+        byte[] out = new byte[COMPRESSED_HEADER_SIZE + maxCompressedLength];
+        out[0] = MAGIC;
+        out[1] = FORMAT_SMILE_LZ4;
+        ByteBuffer.wrap(out, HEADER_SIZE, Integer.BYTES).putInt(payload.length);
+        int compressedLength = compressor.compress(payload, 0, payload.length, out, COMPRESSED_HEADER_SIZE, maxCompressedLength);
+        return Arrays.copyOf(out, COMPRESSED_HEADER_SIZE + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return legacySerializer.deserialize(bytes);
+        }
+        try {
+            return switch (bytes[1]) {
+                case FORMAT_SMILE -> smileMapper.readValue(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE, valueType);
+                case FORMAT_SMILE_LZ4 -> {
+                    int length = ByteBuffer.wrap(bytes, HEADER_SIZE, Integer.BYTES).getInt();
+                    byte[] payload = LZ4.fastDecompressor().decompress(bytes, COMPRESSED_HEADER_SIZE, length);
+                    yield smileMapper.readValue(payload, valueType);
+                }
+                default -> throw new SerializationException("Unknown cache value format: " + bytes[1]);
+            };
+        } catch (IOException e) {
+            throw new SerializationException("Could not read Smile cache value", e);
+        }
+    }
+}
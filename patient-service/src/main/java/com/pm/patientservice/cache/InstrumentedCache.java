@@ -0,0 +1,132 @@
+package com.pm.patientservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+public class InstrumentedCache implements Cache {
+
+    private final Cache delegate;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter evictions;
+    private final Timer getLatency;
+    private final Timer putLatency;
+    private final Timer loadLatency;
+
+    InstrumentedCache(Cache delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        String cacheName = delegate.getName();
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.puts = Counter.builder("cache.puts")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.getLatency = Timer.builder("cache.get.latency")
+                .tag("cache", cacheName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.putLatency = Timer.builder("cache.put.latency")
+                .tag("cache", cacheName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.loadLatency = Timer.builder("cache.load.latency")
+                .tag("cache", cacheName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = getLatency.record(() -> delegate.get(key));
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = getLatency.record(() -> delegate.get(key, type));
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    /**
+     * On a miss the loader's time goes to {@code cache.load.latency}, and only the rest of the call
+     * (lookup and store) to {@code cache.get.latency}.
+     */
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long[] loadNanos = {-1};
+        long start = System.nanoTime();
+        T value = delegate.get(key, () -> {
+            long loadStart = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                loadNanos[0] = System.nanoTime() - loadStart;
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        if (loadNanos[0] >= 0) {
+            loadLatency.record(loadNanos[0], TimeUnit.NANOSECONDS);
+            getLatency.record(elapsed - loadNanos[0], TimeUnit.NANOSECONDS);
+            misses.increment();
+            puts.increment();
+        } else {
+            getLatency.record(elapsed, TimeUnit.NANOSECONDS);
+            hits.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        putLatency.record(() -> delegate.put(key, value));
+        puts.increment();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = putLatency.record(() -> delegate.putIfAbsent(key, value));
+        if (existing == null) {
+            puts.increment();
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        evictions.increment();
+    }
+}
@@ -0,0 +1,38 @@
+package com.pm.patientservice.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Records the serialized size of every value written to a Redis cache.
+ */
+public class MeteredRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final DistributionSummary entrySize;
+
+    public MeteredRedisSerializer(RedisSerializer<Object> delegate, String cacheName, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.entrySize = DistributionSummary.builder("cache.entry.size")
+                .baseUnit("bytes")
+                .tag("cache", cacheName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (bytes != null) {
+            entrySize.record(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        return delegate.deserialize(bytes);
+    }
+}
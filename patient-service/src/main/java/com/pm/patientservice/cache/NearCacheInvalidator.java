@@ -0,0 +1,80 @@
+package com.pm.patientservice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Broadcasts L1 invalidations on {@link #INVALIDATION_CHANNEL} so that a write on one
+ * patient-service instance drops the stale L1 entries on all the others.
+ */
+@Component
+public class NearCacheInvalidator implements MessageListener {
+    public static final String INVALIDATION_CHANNEL = "patient-service:cache-invalidation";
+    private static final Logger log = LoggerFactory.getLogger(NearCacheInvalidator.class);
+    private static final String EVICT = "EVICT";
+    private static final String CLEAR = "CLEAR";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public NearCacheInvalidator(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    void register(TwoTierCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    void publishEvict(String cacheName, Object key) {
+        publish(EVICT, cacheName, String.valueOf(key));
+    }
+
+    void publishClear(String cacheName) {
+        publish(CLEAR, cacheName, "");
+    }
+
+    /**
+     * Drops this instance's L1 entries of a cache without telling the other instances.
+     */
+    void clearLocal(String cacheName) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || instanceId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        switch (parts[1]) {
+            case EVICT -> cache.evictLocal(parts[3]);
+            case CLEAR -> cache.clearLocal();
+            default -> log.warn("Unknown cache invalidation message: {}", parts[1]);
+        }
+    }
+
+    private void publish(String operation, String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join("|", instanceId, operation, cacheName, key));
+        } catch (Exception e) {
+            log.warn("Error publishing cache invalidation for {}::{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+}
@@ -5,24 +5,46 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pm.patientservice.dto.PagedPatientResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
 public class RedisCacheConfig {
 
+    // value type of each known cache, used by the compact binary format
+    private static final Map<String, Class<?>> CACHE_VALUE_TYPES = Map.of(
+            "patients", PagedPatientResponseDTO.class
+    );
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     NearCacheInvalidator nearCacheInvalidator,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${patient.cache.ttl:1h}") Duration ttl,
+                                     @Value("${patient.cache.local.maximum-size:1000}") long localMaximumSize,
+                                     @Value("${patient.cache.local.ttl:30s}") Duration localTtl,
+                                     @Value("${patient.cache.binary-caches:patients}") String[] binaryCaches,
+                                     @Value("${patient.cache.compression-threshold:1024}") int compressionThreshold) {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
 
@@ -33,7 +55,7 @@ public class RedisCacheConfig {
                 JsonTypeInfo.As.PROPERTY);
         GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
+                .entryTtl(ttl)
                 .disableCachingNullValues()
                 .serializeKeysWith(
                         RedisSerializationContext
@@ -45,9 +67,37 @@ public class RedisCacheConfig {
                                 .SerializationPair
                                 .fromSerializer(serializer)
                 );
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(config)
-                .build();
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(config);
+        List<String> binaryCacheNames = Arrays.asList(binaryCaches);
+        for (String cacheName : binaryCacheNames) {
+            if (!CACHE_VALUE_TYPES.containsKey(cacheName)) {
+                throw new IllegalStateException("No value type registered for binary cache " + cacheName);
+            }
+        }
+        CACHE_VALUE_TYPES.forEach((cacheName, valueType) -> {
+            RedisSerializer<Object> valueSerializer = binaryCacheNames.contains(cacheName)
+                    ? new CompactCacheSerializer(valueType, serializer, compressionThreshold)
+                    : serializer;
+            builder.withCacheConfiguration(cacheName, config.serializeValuesWith(
+                    RedisSerializationContext
+                            .SerializationPair
+                            .fromSerializer(new MeteredRedisSerializer(valueSerializer, cacheName, meterRegistry))));
+        });
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.afterPropertiesSet();
+        TwoTierCacheManager twoTierCacheManager = new TwoTierCacheManager(redisCacheManager, nearCacheInvalidator, localMaximumSize, localTtl);
+        return new InstrumentedCacheManager(twoTierCacheManager, meterRegistry);
+    }
 
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                           NearCacheInvalidator nearCacheInvalidator,
+                                                                           CacheGenerations cacheGenerations) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(nearCacheInvalidator, new ChannelTopic(NearCacheInvalidator.INVALIDATION_CHANNEL));
+        container.addMessageListener(cacheGenerations, new ChannelTopic(CacheGenerations.GENERATION_CHANNEL));
+        return container;
     }
 }
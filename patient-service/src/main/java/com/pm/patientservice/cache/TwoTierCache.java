@@ -0,0 +1,121 @@
+package com.pm.patientservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache with a bounded in-heap L1 in front of a shared Redis L2. Reads are served from L1 when
+ * possible; every write also asks the other instances to drop their L1 copy of the key.
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final Cache remoteCache;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache;
+    private final NearCacheInvalidator invalidator;
+
+    TwoTierCache(String name,
+                 Cache remoteCache,
+                 com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache,
+                 NearCacheInvalidator invalidator) {
+        this.name = name;
+        this.remoteCache = remoteCache;
+        this.localCache = localCache;
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object localValue = localCache.getIfPresent(key);
+        if (localValue != null) {
+            return new SimpleValueWrapper(localValue);
+        }
+        ValueWrapper remoteValue = remoteCache.get(key);
+        if (remoteValue != null && remoteValue.get() != null) {
+            localCache.put(key, remoteValue.get());
+        }
+        return remoteValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object localValue = localCache.getIfPresent(key);
+        if (localValue != null) {
+            return (T) localValue;
+        }
+        T value = remoteCache.get(key, valueLoader);
+        if (value != null) {
+            localCache.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remoteCache.put(key, value);
+        if (value != null) {
+            localCache.put(key, value);
+        }
+        invalidator.publishEvict(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        // atomic in Redis; L1 then holds whichever value won
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        Object current = existing != null ? existing.get() : value;
+        if (current != null) {
+            localCache.put(key, current);
+        }
+        if (existing == null) {
+            invalidator.publishEvict(name, key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        localCache.invalidate(key);
+        invalidator.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.invalidateAll();
+        invalidator.publishClear(name);
+    }
+
+    void evictLocal(Object key) {
+        localCache.invalidate(key);
+    }
+
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+}
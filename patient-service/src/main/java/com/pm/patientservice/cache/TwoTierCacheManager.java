@@ -0,0 +1,54 @@
+package com.pm.patientservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps the Redis cache manager with per-instance L1 caches, kept coherent across instances
+ * by {@link NearCacheInvalidator}.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final NearCacheInvalidator invalidator;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager,
+                               NearCacheInvalidator invalidator,
+                               long localMaximumSize,
+                               Duration localTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidator = invalidator;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache remoteCache = remoteCacheManager.getCache(cacheName);
+            if (remoteCache == null) {
+                return null;
+            }
+            TwoTierCache cache = new TwoTierCache(cacheName, remoteCache, Caffeine.newBuilder()
+                    .maximumSize(localMaximumSize)
+                    .expireAfterWrite(localTtl)
+                    .build(), invalidator);
+            invalidator.register(cache);
+            return cache;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+}
@@ -1,18 +1,33 @@
 package com.pm.patientservice.controller;
 
+import com.pm.patientservice.bulk.PatientDataFormat;
+import com.pm.patientservice.dto.BulkImportResultDTO;
 import com.pm.patientservice.dto.PagedPatientResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
 import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.exception.InvalidCursorException;
+import com.pm.patientservice.exception.InvalidPageRequestException;
+import com.pm.patientservice.service.PatientBulkImportService;
+import com.pm.patientservice.service.PatientExportService;
 import com.pm.patientservice.service.PatientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.groups.Default;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.util.UUID;
 
@@ -21,12 +36,21 @@ import java.util.UUID;
 @Tag(name = "Patient", description = "API for managing Patients")
 public class PatientController {
     private final PatientService patientService;
+    private final PatientBulkImportService patientBulkImportService;
+    private final PatientExportService patientExportService;
+    private final int maxPageSize;
 
-    public PatientController(PatientService patientService) {
+    public PatientController(PatientService patientService, PatientBulkImportService patientBulkImportService, PatientExportService patientExportService,
+                             @Value("${patient.page.max-size:100}") int maxPageSize) {
         this.patientService = patientService;
+        this.patientBulkImportService = patientBulkImportService;
+        this.patientExportService = patientExportService;
+        this.maxPageSize = maxPageSize;
     }
 
     // http://localhost:4004/api/patients?page=1&size=10
+    // http://localhost:4004/api/patients?cursor=&size=10 (first keyset page, follow nextCursor afterwards)
+    // responses carry an ETag; If-None-Match with the current one gets a 304 without building the page
     @GetMapping
     @Operation(summary = "Get all patients")
     public ResponseEntity<PagedPatientResponseDTO> getPatients(
@@ -34,10 +58,52 @@ public class PatientController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "asc") String sort,
             @RequestParam(defaultValue = "name") String field,
-            @RequestParam(defaultValue = "") String search
+            @RequestParam(defaultValue = "") String search,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest
     ) {
-        PagedPatientResponseDTO patients = patientService.getPatients(page, size, sort, field, search);
-        return ResponseEntity.ok(patients);
+        if (page < 1 || size < 1) {
+            throw new InvalidPageRequestException("page and size must be at least 1");
+        }
+        if (size > maxPageSize) {
+            throw new InvalidPageRequestException("size must be at most " + maxPageSize);
+        }
+        if (cursor != null) {
+            if (!search.isBlank()) {
+                throw new InvalidCursorException("Cursor pagination does not support search");
+            }
+            if (!field.equals("name")) {
+                throw new InvalidCursorException("Cursor pagination only supports sorting by name");
+            }
+        }
+        String eTag = patientService.getPatientsETag();
+        // no ETag while the change stamp is unavailable, so every request gets a full 200
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+
+        PagedPatientResponseDTO patients;
+        if (cursor != null) {
+            patients = patientService.getPatientsByCursor(cursor, size, sort);
+        } else {
+            patients = patientService.getPatients(page, size, sort, field, search);
+        }
+        if (eTag == null) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(patients);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(patients);
+    }
+
+    // http://localhost:4004/api/patients/export?format=csv
+    @GetMapping("/export")
+    @Operation(summary = "Export all patients as an NDJSON or CSV stream")
+    public ResponseEntity<StreamingResponseBody> exportPatients(@RequestParam(defaultValue = "ndjson") String format) {
+        PatientDataFormat dataFormat = PatientDataFormat.fromName(format);
+        StreamingResponseBody body = outputStream -> patientExportService.exportPatients(outputStream, dataFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(dataFormat.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"patients." + dataFormat.name().toLowerCase() + "\"")
+                .body(body);
     }
 
     @PostMapping
@@ -48,12 +114,26 @@ public class PatientController {
         return ResponseEntity.created(locationOfNewPatient).body(createdPatient);
     }
 
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Import patients from an NDJSON or CSV stream")
+    public ResponseEntity<BulkImportResultDTO> importPatients(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        return ResponseEntity.ok(patientBulkImportService.importPatients(body, PatientDataFormat.fromContentType(contentType)));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing patient")
     public ResponseEntity<PatientResponseDTO> updatePatient(@PathVariable UUID id, @Validated({Default.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
         return ResponseEntity.ok(patientService.updatePatient(id, patientRequestDTO));
     }
 
+    @PatchMapping("/{id}")
+    @Operation(summary = "Update only the given fields of a patient at an expected version")
+    public ResponseEntity<Void> patchPatient(@PathVariable UUID id, @Validated @RequestBody PatientPatchRequestDTO patientPatchRequestDTO) {
+        long version = patientService.patchPatient(id, patientPatchRequestDTO);
+        // the new version, for the next PATCH without another GET
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete an existing patient")
     public ResponseEntity<Void> deletePatient(@PathVariable UUID id) {
@@ -0,0 +1,30 @@
+package com.pm.patientservice.dto;
+
+public class BulkImportErrorDTO {
+    private long row;
+    private String message;
+
+    public BulkImportErrorDTO(long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    public BulkImportErrorDTO() {
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,44 @@
+package com.pm.patientservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkImportResultDTO {
+    private long received;
+    private long imported;
+    private long failed;
+    // capped at patient.bulk.max-reported-errors, failed holds the full count
+    private List<BulkImportErrorDTO> errors = new ArrayList<>();
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BulkImportErrorDTO> errors) {
+        this.errors = errors;
+    }
+}
@@ -8,6 +8,7 @@ public class PagedPatientResponseDTO {
     private int size;
     private int totalElements;
     private int totalPages;
+    private String nextCursor;
 
     public PagedPatientResponseDTO(List<PatientResponseDTO> patients, int page, int size, int totalElements, int totalPages) {
         this.patients = patients;
@@ -17,6 +18,12 @@ public class PagedPatientResponseDTO {
         this.totalPages = totalPages;
     }
 
+    // Cursor pages skip the count query, so page and totals are reported as -1
+    public PagedPatientResponseDTO(List<PatientResponseDTO> patients, int size, String nextCursor) {
+        this(patients, -1, size, -1, -1);
+        this.nextCursor = nextCursor;
+    }
+
     public PagedPatientResponseDTO() {
     }
 
@@ -59,4 +66,12 @@ public class PagedPatientResponseDTO {
     public void setTotalPages(int totalPages) {
         this.totalPages = totalPages;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
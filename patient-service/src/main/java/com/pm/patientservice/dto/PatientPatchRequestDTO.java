@@ -0,0 +1,67 @@
+package com.pm.patientservice.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Fields to change in a PATCH; null fields are left as they are. {@code version} is required, and
+ * the update only applies if the patient is still at that version.
+ */
+public class PatientPatchRequestDTO {
+    @Size(min = 1, max = 100, message = "Name must be between 1 and 100 characters")
+    private String name;
+
+    @Email(message = "Email should be valid")
+    private String email;
+
+    @Size(min = 1, message = "Address can not be empty")
+    private String address;
+
+    @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Date of birth must be yyyy-MM-dd")
+    private String dateOfBirth;
+
+    @NotNull(message = "Version is required")
+    private Long version;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(String dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -6,6 +6,7 @@ public class PatientResponseDTO {
     private String email;
     private String address;
     private String dateOfBirth;
+    private Long version;
 
     public String getId() {
         return id;
@@ -46,4 +47,12 @@ public class PatientResponseDTO {
     public void setDateOfBirth(String dateOfBirth) {
         this.dateOfBirth = dateOfBirth;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -2,11 +2,14 @@ package com.pm.patientservice.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,4 +43,46 @@ public class GlobalExceptionHandler {
         errors.put("message", "Patient not found");
         return ResponseEntity.badRequest().body(errors);
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursorException(InvalidCursorException exception) {
+        log.warn("Invalid cursor {}", exception.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", exception.getMessage());
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidPageRequestException(InvalidPageRequestException exception) {
+        log.warn("Invalid page request {}", exception.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", exception.getMessage());
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    @ExceptionHandler(PatientVersionConflictException.class)
+    public ResponseEntity<Map<String, String>> handlePatientVersionConflictException(PatientVersionConflictException exception) {
+        log.warn("Patient version conflict {}", exception.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "Patient was modified by another request");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+    }
+
+    // a concurrent PUT committed first; same answer as a stale version in a PATCH
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException exception) {
+        log.warn("Patient version conflict {}", exception.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "Patient was modified by another request");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+    }
+
+    // dates are parsed with LocalDate.parse after validation, so impossible ones such as 2024-13-45 end up here
+    @ExceptionHandler(DateTimeParseException.class)
+    public ResponseEntity<Map<String, String>> handleDateTimeParseException(DateTimeParseException exception) {
+        log.warn("Invalid date {}", exception.getParsedString());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "Invalid date " + exception.getParsedString() + ", expected yyyy-MM-dd");
+        return ResponseEntity.badRequest().body(errors);
+    }
 }
@@ -0,0 +1,60 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records {@code billing.grpc.client.calls} per backend address, method and status. The backend is
+ * read from the transport the load balancer picked, so the metric shows the actual traffic spread.
+ */
+public class BackendMetricsInterceptor implements ClientInterceptor {
+    private final MeterRegistry meterRegistry;
+
+    public BackendMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long startNanos = System.nanoTime();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        Timer.builder("billing.grpc.client.calls")
+                                .tag("backend", backend(call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR)))
+                                .tag("method", method.getBareMethodName())
+                                .tag("status", status.getCode().name())
+                                .register(meterRegistry)
+                                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    private static String backend(SocketAddress address) {
+        if (address instanceof InetSocketAddress inetAddress) {
+            return inetAddress.getHostString() + ":" + inetAddress.getPort();
+        }
+        return address == null ? "none" : address.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class BillingChannelConfig {
+    private static final Logger log = LoggerFactory.getLogger(BillingChannelConfig.class);
+
+    /**
+     * Channels to billing-service. The target defaults to {@code dns:///address:port}, which
+     * resolves every instance registered under the Cloud Map name; {@code static:///h1:p,h2:p}
+     * lists instances explicitly. Calls are balanced per channel with the configured policy and
+     * only reach backends whose gRPC health service reports SERVING.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BillingChannelPool billingChannelPool(
+            @Value("${billing.service.address:localhost}") String serverAddress,
+            @Value("${billing.service.port:9001}") int serverPort,
+            @Value("${billing.service.target:}") String target,
+            @Value("${billing.service.load-balancing-policy:round_robin}") String loadBalancingPolicy,
+            @Value("${billing.service.channel-pool-size:2}") int channelPoolSize,
+            @Value("${billing.service.keepalive-time:30s}") Duration keepAliveTime,
+            @Value("${billing.service.keepalive-timeout:10s}") Duration keepAliveTimeout,
+            @Value("${billing.service.health-check-enabled:true}") boolean healthCheckEnabled,
+            MeterRegistry meterRegistry) {
+        StaticNameResolverProvider.registerOnce();
+        String resolvedTarget = target.isBlank() ? "dns:///%s:%d".formatted(serverAddress, serverPort) : target;
+        log.info("Connecting to billing GRPC service at {} with {} x{}", resolvedTarget, loadBalancingPolicy, channelPoolSize);
+
+        Map<String, Object> serviceConfig = healthCheckEnabled
+                ? Map.of("healthCheckConfig", Map.of("serviceName", ""))
+                : Map.of();
+        BackendMetricsInterceptor metricsInterceptor = new BackendMetricsInterceptor(meterRegistry);
+        List<ManagedChannel> channels = new ArrayList<>(channelPoolSize);
+        for (int i = 0; i < channelPoolSize; i++) {
+            channels.add(ManagedChannelBuilder.forTarget(resolvedTarget)
+                    .usePlaintext()
+                    .defaultLoadBalancingPolicy(loadBalancingPolicy)
+                    .defaultServiceConfig(serviceConfig)
+                    .keepAliveTime(keepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                    .keepAliveTimeout(keepAliveTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .intercept(metricsInterceptor)
+                    .build());
+        }
+        return new BillingChannelPool(channels);
+    }
+}
@@ -0,0 +1,42 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads calls round-robin over several channels to the same target. Each channel keeps its own
+ * HTTP/2 connection per backend, so a busy instance is not limited by the stream concurrency of
+ * a single connection.
+ */
+public class BillingChannelPool extends Channel {
+    private final List<ManagedChannel> channels;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public BillingChannelPool(List<ManagedChannel> channels) {
+        this.channels = List.copyOf(channels);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+        return channels.get(Math.floorMod(next.getAndIncrement(), channels.size())).newCall(methodDescriptor, callOptions);
+    }
+
+    @Override
+    public String authority() {
+        return channels.getFirst().authority();
+    }
+
+    public void shutdown() throws InterruptedException {
+        channels.forEach(ManagedChannel::shutdown);
+        for (ManagedChannel channel : channels) {
+            channel.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.pm.patientservice.grpc;
+
+import billing.BillingRequest;
+import billing.BillingResponse;
+import billing.BillingServiceGrpc;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups concurrent billing requests into one CreateBillingAccounts stream. A batch is sent when
+ * it reaches {@code maxBatchSize} or {@code lingerMs} after its first request. Requests are only
+ * written while the stream is ready, and responses are matched back to callers by patientId.
+ * Responses with a status other than ACTIVE fail the caller's future.
+ */
+class BillingRequestBatcher {
+    private record PendingRequest(BillingRequest request, CompletableFuture<BillingResponse> future) {
+    }
+
+    private final BillingServiceGrpc.BillingServiceStub asyncStub;
+    private final ScheduledExecutorService scheduler;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final long deadlineMs;
+    private final Object lock = new Object();
+    private List<PendingRequest> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    BillingRequestBatcher(BillingServiceGrpc.BillingServiceStub asyncStub, ScheduledExecutorService scheduler,
+                          int maxBatchSize, long lingerMs, long deadlineMs) {
+        this.asyncStub = asyncStub;
+        this.scheduler = scheduler;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMs = lingerMs;
+        this.deadlineMs = deadlineMs;
+    }
+
+    CompletableFuture<BillingResponse> submit(BillingRequest request) {
+        PendingRequest pendingRequest = new PendingRequest(request, new CompletableFuture<>());
+        List<PendingRequest> batch = null;
+        synchronized (lock) {
+            pending.add(pendingRequest);
+            if (pending.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return pendingRequest.future();
+    }
+
+    private void flush() {
+        List<PendingRequest> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<PendingRequest> drain() {
+        List<PendingRequest> batch = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void send(List<PendingRequest> batch) {
+        Map<String, List<CompletableFuture<BillingResponse>>> waiting = new HashMap<>();
+        for (PendingRequest pendingRequest : batch) {
+            waiting.computeIfAbsent(pendingRequest.request().getPatientId(), patientId -> new ArrayList<>())
+                    .add(pendingRequest.future());
+        }
+
+        asyncStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+                .createBillingAccounts(new ClientResponseObserver<BillingRequest, BillingResponse>() {
+                    private final Iterator<PendingRequest> toSend = batch.iterator();
+                    private boolean sendCompleted;
+
+                    @Override
+                    public void beforeStart(ClientCallStreamObserver<BillingRequest> requestStream) {
+                        // called again each time the transport drains, so writes resume where they stopped
+                        requestStream.setOnReadyHandler(() -> {
+                            while (requestStream.isReady() && toSend.hasNext()) {
+                                requestStream.onNext(toSend.next().request());
+                            }
+                            if (!toSend.hasNext() && !sendCompleted) {
+                                sendCompleted = true;
+                                requestStream.onCompleted();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onNext(BillingResponse response) {
+                        List<CompletableFuture<BillingResponse>> futures;
+                        synchronized (waiting) {
+                            futures = waiting.remove(response.getPatientId());
+                        }
+                        if (futures == null) {
+                            return;
+                        }
+                        if (!"ACTIVE".equals(response.getStatus())) {
+                            // a per-item failure must reach the circuit breaker, retry and Kafka fallback like a failed call
+                            StatusRuntimeException failure = Status.INTERNAL
+                                    .withDescription("Billing account for patient " + response.getPatientId() + " has status " + response.getStatus())
+                                    .asRuntimeException();
+                            futures.forEach(future -> future.completeExceptionally(failure));
+                            return;
+                        }
+                        futures.forEach(future -> future.complete(response));
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        failRemaining(throwable);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        failRemaining(new IllegalStateException("Billing stream completed without a response"));
+                    }
+
+                    private void failRemaining(Throwable throwable) {
+                        synchronized (waiting) {
+                            waiting.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(throwable)));
+                            waiting.clear();
+                        }
+                    }
+                });
+    }
+}
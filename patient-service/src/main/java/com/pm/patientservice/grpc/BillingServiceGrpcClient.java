@@ -4,44 +4,114 @@ import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc;
 import com.pm.patientservice.kafka.KafkaProducer;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 @Service
 public class BillingServiceGrpcClient {
     private static final Logger log = LoggerFactory.getLogger(BillingServiceGrpcClient.class);
-    private final BillingServiceGrpc.BillingServiceBlockingStub blockingStub;
+    private final BillingServiceGrpc.BillingServiceStub asyncStub;
     private final KafkaProducer kafkaProducer;
+    private final io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker;
+    private final io.github.resilience4j.retry.Retry retry;
+    // retry backoff and batch lingering wait on this scheduler instead of the caller's thread
+    private final ScheduledExecutorService scheduler;
+    private final BillingRequestBatcher batcher;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final long deadlineMs;
 
     public BillingServiceGrpcClient(
-            @Value("${billing.service.address:localhost}") String serverAddress,
-            @Value("${billing.service.port:9001}") int serverPort, KafkaProducer kafkaProducer) {
-        log.info("Connecting to billing GRPC service at {}:{}", serverAddress, serverPort);
-        ManagedChannel channel = ManagedChannelBuilder.forAddress(serverAddress, serverPort).usePlaintext().build();
-        blockingStub = BillingServiceGrpc.newBlockingStub(channel);
+            BillingChannelPool billingChannelPool,
+            @Value("${billing.service.deadline-ms:2000}") long deadlineMs,
+            @Value("${billing.service.batching.enabled:false}") boolean batchingEnabled,
+            @Value("${billing.service.batching.max-batch-size:100}") int maxBatchSize,
+            @Value("${billing.service.batching.linger-ms:5}") long lingerMs,
+            KafkaProducer kafkaProducer,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            RetryRegistry retryRegistry,
+            MeterRegistry meterRegistry) {
+        asyncStub = BillingServiceGrpc.newStub(billingChannelPool);
         this.kafkaProducer = kafkaProducer;
+        this.deadlineMs = deadlineMs;
+        // configured by the resilience4j.*.billing-service / billing-retry properties
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("billing-service");
+        this.retry = retryRegistry.retry("billing-retry");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "billing-grpc-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batcher = batchingEnabled
+                ? new BillingRequestBatcher(asyncStub, scheduler, maxBatchSize, lingerMs, deadlineMs)
+                : null;
+        meterRegistry.gauge("billing.grpc.inflight", inFlight);
     }
 
-    @CircuitBreaker(name = "billing-service", fallbackMethod = "billingFallback")
-    @Retry(name = "billing-retry")
-    public BillingResponse createBillingAccount(String patientId, String patientName, String patientEmail) {
-        BillingRequest billingRequest = BillingRequest.newBuilder()
-                .setPatientId(patientId)
-                .setName(patientName)
-                .setEmail(patientEmail)
-                .build();
-        BillingResponse response = blockingStub.createBillingAccount(billingRequest);
-        log.info("Received response from billing service via GRPC: {}", response);
-        return response;
+    /**
+     * Creates the patient's billing account without blocking the caller. Every attempt goes
+     * through the billing-service circuit breaker; failed attempts are retried on a scheduler, and the Kafka
+     * fallback runs once retries are exhausted or the breaker is open. The returned future never
+     * completes exceptionally. With billing.service.batching.enabled, attempts are sent through
+     * the CreateBillingAccounts stream together with other concurrent requests.
+     */
+    public CompletableFuture<BillingResponse> createBillingAccountAsync(String patientId, String patientName, String patientEmail) {
+        BillingRequest billingRequest = billingRequest(patientId, patientName, patientEmail);
+        Supplier<CompletionStage<BillingResponse>> attempt = io.github.resilience4j.circuitbreaker.CircuitBreaker
+                .decorateCompletionStage(circuitBreaker, () -> call(billingRequest));
+        return io.github.resilience4j.retry.Retry
+                .decorateCompletionStage(retry, scheduler, attempt)
+                .get()
+                .toCompletableFuture()
+                .thenApply(response -> {
+                    log.info("Received response from billing service via GRPC: {}", response);
+                    return response;
+                })
+                .exceptionally(throwable -> billingFallback(patientId, patientName, patientEmail, throwable));
     }
 
-    public BillingResponse billingFallback(String patientId, String patientName, String patientEmail, Throwable throwable) {
+    private CompletableFuture<BillingResponse> call(BillingRequest billingRequest) {
+        inFlight.incrementAndGet();
+        CompletableFuture<BillingResponse> future = batcher != null ? batcher.submit(billingRequest) : callUnary(billingRequest);
+        return future.whenComplete((response, throwable) -> inFlight.decrementAndGet());
+    }
+
+    private CompletableFuture<BillingResponse> callUnary(BillingRequest billingRequest) {
+        CompletableFuture<BillingResponse> future = new CompletableFuture<>();
+        asyncStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+                .createBillingAccount(billingRequest, new StreamObserver<>() {
+                    @Override
+                    public void onNext(BillingResponse response) {
+                        future.complete(response);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        future.completeExceptionally(throwable);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+        return future;
+    }
+
+    private BillingResponse billingFallback(String patientId, String patientName, String patientEmail, Throwable throwable) {
         log.error("[CIRCUIT BREAKER]: Error calling billing service via GRPC: {}", throwable.getMessage());
         kafkaProducer.sendBillingAccountEvent(patientId, patientName, patientEmail);
         return BillingResponse.newBuilder()
@@ -49,4 +119,17 @@ public class BillingServiceGrpcClient {
                 .setStatus("PENDING")
                 .build();
     }
+
+    private static BillingRequest billingRequest(String patientId, String patientName, String patientEmail) {
+        return BillingRequest.newBuilder()
+                .setPatientId(patientId)
+                .setName(patientName)
+                .setEmail(patientEmail)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
 }
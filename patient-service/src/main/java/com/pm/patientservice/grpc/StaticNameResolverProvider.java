@@ -0,0 +1,80 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves {@code static:///host1:9001,host2:9001} to a fixed list of backends, one address group
+ * each, so the load balancer can spread calls over billing instances that are not behind DNS.
+ */
+public class StaticNameResolverProvider extends NameResolverProvider {
+    public static final String SCHEME = "static";
+    private static final AtomicBoolean REGISTERED = new AtomicBoolean();
+
+    public static void registerOnce() {
+        if (REGISTERED.compareAndSet(false, true)) {
+            NameResolverRegistry.getDefaultRegistry().register(new StaticNameResolverProvider());
+        }
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        String hosts = targetUri.getPath().startsWith("/") ? targetUri.getPath().substring(1) : targetUri.getPath();
+        List<EquivalentAddressGroup> addressGroups = Arrays.stream(hosts.split(","))
+                .map(String::trim)
+                .filter(hostPort -> !hostPort.isEmpty())
+                .map(StaticNameResolverProvider::addressGroup)
+                .toList();
+        return new NameResolver() {
+            @Override
+            public void start(Listener2 listener) {
+                listener.onResult(ResolutionResult.newBuilder().setAddresses(addressGroups).build());
+            }
+
+            @Override
+            public String getServiceAuthority() {
+                return "billing-service";
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+
+    private static EquivalentAddressGroup addressGroup(String hostPort) {
+        int separator = hostPort.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Expected host:port in static billing target, got " + hostPort);
+        }
+        SocketAddress address = new InetSocketAddress(hostPort.substring(0, separator), Integer.parseInt(hostPort.substring(separator + 1)));
+        return new EquivalentAddressGroup(address);
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    protected int priority() {
+        return 5;
+    }
+}
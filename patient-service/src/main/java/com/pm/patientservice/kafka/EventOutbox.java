@@ -0,0 +1,83 @@
+package com.pm.patientservice.kafka;
+
+import billing.events.BillingAccountEvent;
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import patient.events.PatientEvent;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes events to the outbox table. Callers must be inside the transaction that changes the
+ * patient, so the event is committed atomically with it; {@link OutboxRelay} publishes it afterwards.
+ */
+@Service
+public class EventOutbox {
+    public static final String PATIENT_TOPIC = "patient";
+    public static final String BILLING_ACCOUNT_TOPIC = "billing-account";
+    private static final String INSERT_OUTBOX_EVENT = """
+            INSERT INTO outbox_event (aggregate_id, topic, event_type, payload, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventOutbox(OutboxEventRepository outboxEventRepository, JdbcTemplate jdbcTemplate) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void enqueuePatientCreated(Patient patient) {
+        PatientEvent patientEvent = patientCreatedEvent(patient);
+        enqueue(PATIENT_TOPIC, patientEvent.getPatientId(), patientEvent.getEventType(), patientEvent.toByteArray());
+    }
+
+    /**
+     * Enqueues the PatientCreated event and a billing account request for every imported patient
+     * in one JDBC batch. Imported patients get their billing accounts through the billing-account
+     * topic instead of one gRPC call each.
+     */
+    public void enqueuePatientsImported(List<Patient> patients) {
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(patients.size() * 2);
+        for (Patient patient : patients) {
+            PatientEvent patientEvent = patientCreatedEvent(patient);
+            rows.add(new Object[]{patientEvent.getPatientId(), PATIENT_TOPIC, patientEvent.getEventType(), patientEvent.toByteArray(), createdAt});
+
+            BillingAccountEvent billingAccountEvent = BillingAccountEvent.newBuilder()
+                    .setPatientId(patientEvent.getPatientId())
+                    .setName(patient.getName())
+                    .setEmail(patient.getEmail())
+                    .setEventType("BILLING_ACCOUNT_CREATE_REQUESTED")
+                    .build();
+            rows.add(new Object[]{billingAccountEvent.getPatientId(), BILLING_ACCOUNT_TOPIC, billingAccountEvent.getEventType(), billingAccountEvent.toByteArray(), createdAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_EVENT, rows);
+    }
+
+    private static PatientEvent patientCreatedEvent(Patient patient) {
+        return PatientEvent.newBuilder()
+                .setPatientId(patient.getId().toString())
+                .setName(patient.getName())
+                .setEmail(patient.getEmail())
+                .setEventType("PATIENT_CREATED")
+                .build();
+    }
+
+    private void enqueue(String topic, String aggregateId, String eventType, byte[] payload) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setTopic(topic);
+        outboxEvent.setAggregateId(aggregateId);
+        outboxEvent.setEventType(eventType);
+        outboxEvent.setPayload(payload);
+        outboxEvent.setCreatedAt(Instant.now());
+        outboxEventRepository.save(outboxEvent);
+    }
+}
@@ -1,38 +1,90 @@
 package com.pm.patientservice.kafka;
 
 import billing.events.BillingAccountEvent;
-import com.pm.patientservice.model.Patient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import patient.events.PatientEvent;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyed, asynchronous sends with a bound on records awaiting acknowledgement. When
+ * {@code patient.kafka.max-in-flight} sends are outstanding, callers block for up to
+ * {@code patient.kafka.acquire-timeout-ms} and then get a failed future, instead of piling
+ * records into the client buffer. Producer batch sizes come from the Kafka client metrics
+ * ({@code kafka.producer.batch.size.*}) that Spring Boot binds to the registry. Meters are
+ * registered once per topic and reused by every send.
+ */
 @Service
 public class KafkaProducer {
     private static final Logger log = LoggerFactory.getLogger(KafkaProducer.class);
+
+    private record TopicMeters(String topic, DistributionSummary recordSize, Timer sendSuccess, Timer sendFailure,
+                               ConcurrentMap<String, Counter> errors) {
+    }
+
     private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore inFlight;
+    private final long acquireTimeoutMs;
+    private final ConcurrentMap<String, TopicMeters> topicMeters = new ConcurrentHashMap<>();
 
-    public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+    public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${patient.kafka.max-in-flight:10000}") int maxInFlight,
+                         @Value("${patient.kafka.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
         this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        meterRegistry.gauge("kafka.producer.inflight", inFlight, semaphore -> maxInFlight - semaphore.availablePermits());
     }
 
-    public void sendEvent(Patient patient) {
-        PatientEvent patientEvent = PatientEvent.newBuilder()
-                .setPatientId(patient.getId().toString())
-                .setName(patient.getName())
-                .setEmail(patient.getEmail())
-                .setEventType("PATIENT_CREATED")
-                .build();
+    public CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, byte[] payload) {
+        TopicMeters meters = meters(topic);
+        try {
+            if (!inFlight.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                recordError(meters, "InFlightLimitExceeded");
+                return CompletableFuture.failedFuture(new IllegalStateException(
+                        "Too many in-flight Kafka sends, gave up after " + acquireTimeoutMs + " ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
 
+        meters.recordSize().record(payload.length);
+        long startNanos = System.nanoTime();
+        CompletableFuture<SendResult<String, byte[]>> future;
         try {
-            kafkaTemplate.send("patient", patientEvent.toByteArray());
-        } catch (Exception e) {
-            log.error("Error sending PatientCreated event: {}", patientEvent);
+            future = kafkaTemplate.send(topic, key, payload);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            recordError(meters, e.getClass().getSimpleName());
+            return CompletableFuture.failedFuture(e);
         }
+        return future.whenComplete((result, throwable) -> {
+            inFlight.release();
+            (throwable == null ? meters.sendSuccess() : meters.sendFailure())
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (throwable != null) {
+                recordError(meters, throwable.getClass().getSimpleName());
+            }
+        });
     }
 
-    public void sendBillingAccountEvent(String patientId, String patientName, String patientEmail) {
+    public CompletableFuture<SendResult<String, byte[]>> sendBillingAccountEvent(String patientId, String patientName, String patientEmail) {
         BillingAccountEvent billingAccountEvent = BillingAccountEvent.newBuilder()
                 .setPatientId(patientId)
                 .setName(patientName)
@@ -40,10 +92,40 @@ public class KafkaProducer {
                 .setEventType("BILLING_ACCOUNT_CREATE_REQUESTED")
                 .build();
 
-        try {
-            kafkaTemplate.send("billing-account", billingAccountEvent.toByteArray());
-        } catch (Exception e) {
-            log.error("Error sending BillingAccountCreated event: {}", billingAccountEvent);
-        }
+        return send(EventOutbox.BILLING_ACCOUNT_TOPIC, patientId, billingAccountEvent.toByteArray())
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        log.error("Error sending BillingAccountCreated event: {}", billingAccountEvent, throwable);
+                    }
+                });
+    }
+
+    private TopicMeters meters(String topic) {
+        return topicMeters.computeIfAbsent(topic, name -> new TopicMeters(
+                name,
+                DistributionSummary.builder("kafka.producer.record.size")
+                        .baseUnit("bytes")
+                        .tag("topic", name)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                sendLatency(name, "success"),
+                sendLatency(name, "failure"),
+                new ConcurrentHashMap<>()));
+    }
+
+    private Timer sendLatency(String topic, String result) {
+        return Timer.builder("kafka.producer.send.latency")
+                .tag("topic", topic)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void recordError(TopicMeters meters, String exception) {
+        meters.errors().computeIfAbsent(exception, name -> Counter.builder("kafka.producer.send.errors")
+                        .tag("topic", meters.topic())
+                        .tag("exception", name)
+                        .register(meterRegistry))
+                .increment();
     }
 }
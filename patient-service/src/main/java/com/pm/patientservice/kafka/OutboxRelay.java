@@ -0,0 +1,120 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the outbox table to Kafka in batches. Rows are only deleted once the broker acknowledged
+ * them, so events survive broker outages; delivery is at-least-once.
+ * <p>
+ * Events of one patient are sent one at a time: the next is only sent after the previous one was
+ * acknowledged, so a failed event is retried before any later event of that patient is published.
+ * Different patients are sent in parallel. Rows are claimed with SKIP LOCKED, and a patient whose
+ * older events are claimed by another relay is left for a later batch. A batch waits at most
+ * {@code patient.outbox.batch-timeout-ms} in total for acknowledgements.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducer kafkaProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long batchTimeoutNanos;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaProducer kafkaProducer,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${patient.outbox.batch-size:500}") int batchSize,
+                       @Value("${patient.outbox.batch-timeout-ms:10000}") long batchTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaProducer = kafkaProducer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+    }
+
+    @Scheduled(fixedDelayString = "${patient.outbox.poll-interval-ms:200}")
+    public void relay() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed == batchSize);
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findRelayBatch(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        batch.forEach(event -> byAggregate.computeIfAbsent(event.getAggregateId(), id -> new ArrayList<>()).add(event));
+        // an older event of the patient is locked by another relay; sending now would overtake it
+        Map<String, Long> oldestIds = new HashMap<>();
+        outboxEventRepository.findOldestIds(byAggregate.keySet())
+                .forEach(row -> oldestIds.put((String) row[0], (Long) row[1]));
+        byAggregate.entrySet().removeIf(entry -> !entry.getValue().getFirst().getId().equals(oldestIds.get(entry.getKey())));
+
+        List<Long> delivered = new ArrayList<>();
+        boolean failed = false;
+        long deadline = System.nanoTime() + batchTimeoutNanos;
+        // round n sends the n-th event of every patient whose earlier events were all acknowledged
+        for (int round = 0; !byAggregate.isEmpty() && System.nanoTime() < deadline; round++) {
+            List<OutboxEvent> events = new ArrayList<>();
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Iterator<List<OutboxEvent>> aggregates = byAggregate.values().iterator();
+            while (aggregates.hasNext()) {
+                List<OutboxEvent> aggregateEvents = aggregates.next();
+                if (round >= aggregateEvents.size()) {
+                    aggregates.remove();
+                    continue;
+                }
+                OutboxEvent event = aggregateEvents.get(round);
+                events.add(event);
+                sends.add(kafkaProducer.send(event.getTopic(), event.getAggregateId(), event.getPayload()));
+            }
+
+            for (int i = 0; i < events.size(); i++) {
+                OutboxEvent event = events.get(i);
+                try {
+                    sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    delivered.add(event.getId());
+                } catch (ExecutionException | TimeoutException e) {
+                    log.error("Error relaying outbox event {} to {}: {}", event.getId(), event.getTopic(), e.getMessage());
+                    byAggregate.remove(event.getAggregateId());
+                    failed = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    byAggregate.remove(event.getAggregateId());
+                    failed = true;
+                }
+            }
+        }
+
+        if (!delivered.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(delivered);
+        }
+        // stop draining on failure and retry on the next tick; skipped patients also end the loop
+        return failed ? 0 : delivered.size();
+    }
+}
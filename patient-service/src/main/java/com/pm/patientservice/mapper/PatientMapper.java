@@ -15,6 +15,7 @@ public class PatientMapper {
         patientResponseDTO.setEmail(patient.getEmail());
         patientResponseDTO.setAddress(patient.getAddress());
         patientResponseDTO.setDateOfBirth(patient.getDateOfBirth().toString());
+        patientResponseDTO.setVersion(patient.getVersion());
         return patientResponseDTO;
     }
 
@@ -8,6 +8,7 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = @Index(name = "idx_patient_name_id", columnList = "name, id"))
 public class Patient {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -30,6 +31,11 @@ public class Patient {
     @NotNull
     private LocalDate registeredDate;
 
+    // optimistic lock, incremented by Hibernate on every update
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     public UUID getId() {
         return id;
     }
@@ -77,4 +83,12 @@ public class Patient {
     public void setRegisteredDate(LocalDate registeredDate) {
         this.registeredDate = registeredDate;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
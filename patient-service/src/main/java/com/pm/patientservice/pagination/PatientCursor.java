@@ -0,0 +1,44 @@
+package com.pm.patientservice.pagination;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+import com.pm.patientservice.model.Patient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor for patient listings. It carries the sort key (name) and the id as a
+ * tie breaker, so the next page can seek with {@code (name, id) > (?, ?)} instead of an offset.
+ * The sort direction is part of the cursor, since the same position means a different page in
+ * the other direction.
+ */
+public record PatientCursor(boolean ascending, String name, UUID id) {
+
+    private static final char SEPARATOR = ':';
+    private static final char ASC = 'a';
+    private static final char DESC = 'd';
+
+    public static PatientCursor of(Patient patient, boolean ascending) {
+        return new PatientCursor(ascending, patient.getName(), patient.getId());
+    }
+
+    public String encode() {
+        String raw = String.valueOf(ascending ? ASC : DESC) + SEPARATOR + id + SEPARATOR + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PatientCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR, 2);
+            if (raw.length() < 2 || raw.charAt(1) != SEPARATOR || separator < 0
+                    || (raw.charAt(0) != ASC && raw.charAt(0) != DESC)) {
+                throw new InvalidCursorException("Malformed cursor: " + cursor);
+            }
+            return new PatientCursor(raw.charAt(0) == ASC, raw.substring(separator + 1), UUID.fromString(raw.substring(2, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // FOR UPDATE SKIP LOCKED (lock timeout -2): relays on other instances take the next unlocked rows instead of waiting
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e order by e.id")
+    List<OutboxEvent> findRelayBatch(Limit limit);
+
+    /**
+     * @return pairs of aggregate id and its oldest outbox event id, including rows locked by other relays
+     */
+    @Query("select e.aggregateId, min(e.id) from OutboxEvent e where e.aggregateId in :aggregateIds group by e.aggregateId")
+    List<Object[]> findOldestIds(@Param("aggregateIds") Collection<String> aggregateIds);
+}
@@ -0,0 +1,37 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.model.Patient;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+/**
+ * JDBC batch inserts for bulk imports. Ids are assigned by the caller, so rows can be written
+ * without the per-entity round trips of {@code saveAll}.
+ */
+@Repository
+public class PatientBatchRepository {
+    private static final String INSERT_PATIENT = """
+            INSERT INTO patient (id, name, email, address, date_of_birth, registered_date, version)
+            VALUES (?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PatientBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<Patient> patients) {
+        jdbcTemplate.batchUpdate(INSERT_PATIENT, patients, patients.size(), (ps, patient) -> {
+            ps.setObject(1, patient.getId());
+            ps.setString(2, patient.getName());
+            ps.setString(3, patient.getEmail());
+            ps.setString(4, patient.getAddress());
+            ps.setDate(5, Date.valueOf(patient.getDateOfBirth()));
+            ps.setDate(6, Date.valueOf(patient.getRegisteredDate()));
+        });
+    }
+}
@@ -4,13 +4,72 @@ import com.pm.patientservice.model.Patient;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, UUID> {
     boolean existsByEmail(String email);
     boolean existsByEmailAndIdNot(String email, UUID id);
-    Page<Patient> findByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    /**
+     * Sets the non-null fields in one UPDATE. The row only matches if it has not been changed since
+     * the given version was read.
+     *
+     * @return the number of rows updated, 0 if the patient is missing or the version is stale
+     */
+    @Modifying
+    @Query("""
+            update Patient p set
+                p.name = coalesce(:name, p.name),
+                p.email = coalesce(:email, p.email),
+                p.address = coalesce(:address, p.address),
+                p.dateOfBirth = coalesce(:dateOfBirth, p.dateOfBirth),
+                p.version = p.version + 1
+            where p.id = :id and p.version = :version
+            """)
+    int patch(@Param("id") UUID id,
+              @Param("version") long version,
+              @Param("name") String name,
+              @Param("email") String email,
+              @Param("address") String address,
+              @Param("dateOfBirth") LocalDate dateOfBirth);
+
+    @Query("select p.email from Patient p where p.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // PostgreSQL only: served by the pg_trgm GIN indexes created by PgTrgmPatientSearchIndex
+    @Query(value = """
+            SELECT * FROM patient p
+            WHERE lower(p.name) LIKE :pattern OR lower(p.email) LIKE :pattern OR lower(p.address) LIKE :pattern
+            ORDER BY greatest(word_similarity(:term, lower(p.name)),
+                              word_similarity(:term, lower(p.email)),
+                              word_similarity(:term, lower(p.address))) DESC, p.name, p.id
+            """,
+            countQuery = """
+                    SELECT count(*) FROM patient p
+                    WHERE lower(p.name) LIKE :pattern OR lower(p.email) LIKE :pattern OR lower(p.address) LIKE :pattern
+                    """,
+            nativeQuery = true)
+    Page<Patient> searchByTrigram(@Param("term") String term, @Param("pattern") String pattern, Pageable pageable);
+
+    // Keyset pagination on (name, id), served by idx_patient_name_id
+    @Query(value = "SELECT * FROM patient ORDER BY name ASC, id ASC LIMIT :limit", nativeQuery = true)
+    List<Patient> findFirstByNameAsc(@Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM patient ORDER BY name DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Patient> findFirstByNameDesc(@Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM patient WHERE (name, id) > (:name, :id) ORDER BY name ASC, id ASC LIMIT :limit", nativeQuery = true)
+    List<Patient> findAfterByNameAsc(@Param("name") String name, @Param("id") UUID id, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM patient WHERE (name, id) < (:name, :id) ORDER BY name DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Patient> findAfterByNameDesc(@Param("name") String name, @Param("id") UUID id, @Param("limit") int limit);
 }
@@ -0,0 +1,197 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Trigram inverted index kept in the heap, only used with {@code patient.search.engine=memory}.
+ * It only sees the writes of its own instance, so it is for a single instance on H2 and for tests;
+ * with more than one replica use {@link PgTrgmPatientSearchIndex}, the default. The index is built
+ * at startup by streaming the name, email and address columns, not by loading whole entities.
+ */
+@Component
+@ConditionalOnProperty(name = "patient.search.engine", havingValue = "memory")
+public class InMemoryPatientSearchIndex implements PatientSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(InMemoryPatientSearchIndex.class);
+    private static final int GRAM_SIZE = 3;
+
+    private final PatientRepository patientRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+    private final Map<UUID, IndexedPatient> documents = new ConcurrentHashMap<>();
+
+    public InMemoryPatientSearchIndex(PatientRepository patientRepository, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.warn("Using the in-memory patient search index; it only sees this instance's writes, use patient.search.engine=pg-trgm with more than one instance");
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT id, name, email, address FROM patient");
+            statement.setFetchSize(10_000);
+            return statement;
+        }, resultSet -> {
+            index(resultSet.getObject(1, UUID.class), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4));
+        }));
+        log.info("Built in-memory patient search index with {} patients and {} trigrams", documents.size(), postings.size());
+    }
+
+    @Override
+    public void index(Patient patient) {
+        index(patient.getId(), patient.getName(), patient.getEmail(), patient.getAddress());
+    }
+
+    private synchronized void index(UUID id, String name, String email, String address) {
+        IndexedPatient document = new IndexedPatient(normalize(name), normalize(email), normalize(address));
+        IndexedPatient previous = documents.put(id, document);
+        if (previous != null) {
+            previous.grams().forEach(gram -> removePosting(gram, id));
+        }
+        document.grams().forEach(gram -> postings
+                .computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet())
+                .add(id));
+    }
+
+    @Override
+    public synchronized void remove(UUID patientId) {
+        IndexedPatient previous = documents.remove(patientId);
+        if (previous != null) {
+            previous.grams().forEach(gram -> removePosting(gram, patientId));
+        }
+    }
+
+    @Override
+    public void reindex(UUID patientId) {
+        patientRepository.findById(patientId).ifPresentOrElse(this::index, () -> remove(patientId));
+    }
+
+    @Override
+    public Page<Patient> search(String query, Pageable pageable) {
+        String needle = normalize(query);
+        List<ScoredPatient> ranked = candidates(needle)
+                .stream()
+                .map(id -> score(id, needle))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingInt(ScoredPatient::score).reversed()
+                        .thenComparing(ScoredPatient::name)
+                        .thenComparing(ScoredPatient::id))
+                .toList();
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<UUID> pageIds = ranked.subList(from, to).stream().map(ScoredPatient::id).toList();
+
+        Map<UUID, Patient> loaded = patientRepository.findAllById(pageIds)
+                .stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        List<Patient> content = pageIds.stream()
+                .map(loaded::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, ranked.size());
+    }
+
+    private Collection<UUID> candidates(String needle) {
+        if (needle.length() < GRAM_SIZE) {
+            // too short to produce a trigram, verify every document instead
+            return documents.keySet();
+        }
+        List<Set<UUID>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<UUID> ids = postings.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<UUID> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private ScoredPatient score(UUID id, String needle) {
+        IndexedPatient document = documents.get(id);
+        if (document == null) {
+            return null;
+        }
+        int score = fieldScore(document.name(), needle, 3)
+                + fieldScore(document.email(), needle, 2)
+                + fieldScore(document.address(), needle, 1);
+        return score == 0 ? null : new ScoredPatient(id, document.name(), score);
+    }
+
+    private static int fieldScore(String field, String needle, int weight) {
+        int position = field.indexOf(needle);
+        if (position < 0) {
+            return 0;
+        }
+        if (field.length() == needle.length()) {
+            return weight * 4;
+        }
+        return position == 0 ? weight * 2 : weight;
+    }
+
+    private void removePosting(String gram, UUID patientId) {
+        postings.computeIfPresent(gram, (g, ids) -> {
+            ids.remove(patientId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private record IndexedPatient(String name, String email, String address) {
+        Set<String> grams() {
+            Set<String> grams = InMemoryPatientSearchIndex.grams(name);
+            grams.addAll(InMemoryPatientSearchIndex.grams(email));
+            grams.addAll(InMemoryPatientSearchIndex.grams(address));
+            return grams;
+        }
+    }
+
+    private record ScoredPatient(UUID id, String name, int score) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.model.Patient;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.UUID;
+
+/**
+ * Substring search over patient name, email and address backed by an n-gram index.
+ * Results are ranked by relevance, so any sort on the {@link Pageable} is ignored.
+ */
+public interface PatientSearchIndex {
+
+    void index(Patient patient);
+
+    void remove(UUID patientId);
+
+    /**
+     * Reindexes a patient changed by a bulk UPDATE, without the caller having loaded the entity.
+     */
+    void reindex(UUID patientId);
+
+    Page<Patient> search(String query, Pageable pageable);
+}
@@ -0,0 +1,71 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * PostgreSQL search backed by pg_trgm GIN indexes. The indexes are maintained by PostgreSQL
+ * in the same transaction as the row change, so {@link #index} and {@link #remove} are no-ops.
+ * This is the default engine, and the only one that stays consistent across instances.
+ */
+@Component
+@ConditionalOnProperty(name = "patient.search.engine", havingValue = "pg-trgm", matchIfMissing = true)
+public class PgTrgmPatientSearchIndex implements PatientSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(PgTrgmPatientSearchIndex.class);
+
+    private final PatientRepository patientRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PgTrgmPatientSearchIndex(PatientRepository patientRepository, JdbcTemplate jdbcTemplate) {
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_patient_name_trgm ON patient USING gin (lower(name) gin_trgm_ops)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_patient_email_trgm ON patient USING gin (lower(email) gin_trgm_ops)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_patient_address_trgm ON patient USING gin (lower(address) gin_trgm_ops)");
+        log.info("pg_trgm patient search indexes are in place");
+    }
+
+    @Override
+    public void index(Patient patient) {
+    }
+
+    @Override
+    public void remove(UUID patientId) {
+    }
+
+    @Override
+    public void reindex(UUID patientId) {
+    }
+
+    @Override
+    public Page<Patient> search(String query, Pageable pageable) {
+        String term = query.toLowerCase(Locale.ROOT);
+        String pattern = "%" + escapeLike(term) + "%";
+        return patientRepository.searchByTrigram(term, pattern, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
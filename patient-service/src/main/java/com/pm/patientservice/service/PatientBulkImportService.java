@@ -0,0 +1,202 @@
+package com.pm.patientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.bulk.PatientDataFormat;
+import com.pm.patientservice.bulk.PatientImportReader;
+import com.pm.patientservice.bulk.PatientImportRow;
+import com.pm.patientservice.cache.CacheGenerations;
+import com.pm.patientservice.dto.BulkImportErrorDTO;
+import com.pm.patientservice.dto.BulkImportResultDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.kafka.EventOutbox;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientBatchRepository;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.uniqueness.EmailBloomFilter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Imports patients from a streamed NDJSON or CSV body. Rows are validated one by one and written
+ * in chunks: at most one email lookup, one batched patient insert and one batched outbox insert per chunk.
+ * Invalid rows are reported and skipped; they never fail the rest of the import.
+ */
+@Service
+public class PatientBulkImportService {
+    private static final Logger log = LoggerFactory.getLogger(PatientBulkImportService.class);
+    private static final String PATIENTS_CACHE = "patients";
+
+    private final PatientRepository patientRepository;
+    private final PatientBatchRepository patientBatchRepository;
+    private final EventOutbox eventOutbox;
+    private final PatientSearchIndex patientSearchIndex;
+    private final CacheGenerations cacheGenerations;
+    private final EmailBloomFilter emailBloomFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public PatientBulkImportService(PatientRepository patientRepository,
+                                    PatientBatchRepository patientBatchRepository,
+                                    EventOutbox eventOutbox,
+                                    PatientSearchIndex patientSearchIndex,
+                                    CacheGenerations cacheGenerations,
+                                    EmailBloomFilter emailBloomFilter,
+                                    TransactionTemplate transactionTemplate,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    @Value("${patient.bulk.chunk-size:1000}") int chunkSize,
+                                    @Value("${patient.bulk.max-reported-errors:1000}") int maxReportedErrors) {
+        this.patientRepository = patientRepository;
+        this.patientBatchRepository = patientBatchRepository;
+        this.eventOutbox = eventOutbox;
+        this.patientSearchIndex = patientSearchIndex;
+        this.cacheGenerations = cacheGenerations;
+        this.emailBloomFilter = emailBloomFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public BulkImportResultDTO importPatients(InputStream body, PatientDataFormat format) {
+        BulkImportResultDTO result = new BulkImportResultDTO();
+        List<PatientImportRow> chunk = new ArrayList<>(chunkSize);
+        try (PatientImportReader reader = new PatientImportReader(body, format, objectMapper)) {
+            PatientImportRow row;
+            while ((row = reader.next()) != null) {
+                result.setReceived(result.getReceived() + 1);
+                String error = row.error() != null ? row.error() : validate(row.patient());
+                if (error != null) {
+                    reportError(result, row.rowNumber(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read bulk import body", e);
+        } finally {
+            if (result.getImported() > 0) {
+                cacheGenerations.bump(PATIENTS_CACHE);
+            }
+        }
+        log.info("Bulk import finished: received={}, imported={}, failed={}",
+                result.getReceived(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private void importChunk(List<PatientImportRow> chunk, BulkImportResultDTO result) {
+        try {
+            insertChunk(chunk, result, false);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent write, or an email the filter wrongly ruled out; the whole chunk was rolled back
+            log.warn("Bulk import chunk rejected by the database, retrying with every email looked up: {}",
+                    e.getMostSpecificCause().getMessage());
+            try {
+                insertChunk(chunk, result, true);
+            } catch (DataIntegrityViolationException retryFailure) {
+                log.warn("Bulk import chunk rejected by the database again: {}", retryFailure.getMostSpecificCause().getMessage());
+                chunk.forEach(row -> reportError(result, row.rowNumber(), "Rejected by the database, retry the row"));
+            }
+        }
+    }
+
+    /**
+     * Inserts the rows whose email is not taken and reports the others, once the chunk is committed.
+     *
+     * @param lookUpAll look up every email instead of only those the filter cannot rule out
+     */
+    private void insertChunk(List<PatientImportRow> chunk, BulkImportResultDTO result, boolean lookUpAll) {
+        Set<String> candidateEmails = chunk.stream()
+                .map(row -> row.patient().getEmail())
+                .filter(email -> lookUpAll || emailBloomFilter.mightContain(email))
+                .collect(Collectors.toSet());
+        Set<String> existingEmails = candidateEmails.isEmpty()
+                ? Set.of()
+                : new HashSet<>(patientRepository.findExistingEmails(candidateEmails));
+
+        Set<String> chunkEmails = new HashSet<>();
+        List<PatientImportRow> duplicates = new ArrayList<>();
+        List<Patient> patients = new ArrayList<>(chunk.size());
+        for (PatientImportRow row : chunk) {
+            String email = row.patient().getEmail();
+            if (existingEmails.contains(email) || !chunkEmails.add(email)) {
+                duplicates.add(row);
+                continue;
+            }
+            Patient patient = PatientMapper.toModel(row.patient());
+            patient.setId(UUID.randomUUID());
+            patients.add(patient);
+        }
+
+        if (!patients.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                patientBatchRepository.insertAll(patients);
+                eventOutbox.enqueuePatientsImported(patients);
+            });
+        }
+        duplicates.forEach(row -> reportError(result, row.rowNumber(),
+                "A patient with the same email address already exists " + row.patient().getEmail()));
+        if (patients.isEmpty()) {
+            return;
+        }
+        patients.forEach(patient -> emailBloomFilter.add(patient.getEmail()));
+        patients.forEach(patientSearchIndex::index);
+        result.setImported(result.getImported() + patients.size());
+    }
+
+    private String validate(PatientRequestDTO patient) {
+        Set<ConstraintViolation<PatientRequestDTO>> violations =
+                validator.validate(patient, Default.class, CreatePatientValidationGroup.class);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        try {
+            PatientMapper.toModel(patient);
+        } catch (DateTimeParseException e) {
+            return "Invalid date: " + e.getParsedString();
+        }
+        return null;
+    }
+
+    private void reportError(BulkImportResultDTO result, long rowNumber, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new BulkImportErrorDTO(rowNumber, message));
+        }
+    }
+}
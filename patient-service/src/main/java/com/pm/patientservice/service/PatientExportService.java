@@ -0,0 +1,73 @@
+package com.pm.patientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.bulk.PatientDataFormat;
+import com.pm.patientservice.bulk.PatientExportWriter;
+import com.pm.patientservice.model.Patient;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the patient table to an output stream from a forward-only cursor. Rows are fetched
+ * {@code patient.export.batch-size} at a time and the persistence context is cleared after every
+ * batch, so heap use stays flat regardless of the table size.
+ */
+@Service
+public class PatientExportService {
+    private static final Logger log = LoggerFactory.getLogger(PatientExportService.class);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public PatientExportService(EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${patient.export.batch-size:1000}") int batchSize) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        // PostgreSQL only honours the fetch size inside a transaction, otherwise it buffers the whole result
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public void exportPatients(OutputStream outputStream, PatientDataFormat format) {
+        long exported = readOnlyTransactionTemplate.execute(status -> {
+            try (Stream<Patient> patients = entityManager
+                    .createQuery("select p from Patient p", Patient.class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, batchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+                PatientExportWriter writer = new PatientExportWriter(outputStream, format, objectMapper);
+                long count = 0;
+                Iterator<Patient> iterator = patients.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    if (++count % batchSize == 0) {
+                        writer.flush();
+                        entityManager.clear();
+                    }
+                }
+                writer.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write patient export", e);
+            }
+        });
+        log.info("Exported {} patients as {}", exported, format);
+    }
+}
@@ -1,45 +1,64 @@
 package com.pm.patientservice.service;
 
+import com.pm.patientservice.cache.CacheGenerations;
 import com.pm.patientservice.dto.PagedPatientResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
 import com.pm.patientservice.exception.EmailAlreadyExistsException;
+import com.pm.patientservice.exception.InvalidCursorException;
 import com.pm.patientservice.exception.PatientNotFoundException;
+import com.pm.patientservice.exception.PatientVersionConflictException;
 import com.pm.patientservice.grpc.BillingServiceGrpcClient;
-import com.pm.patientservice.kafka.KafkaProducer;
+import com.pm.patientservice.kafka.EventOutbox;
 import com.pm.patientservice.mapper.PatientMapper;
 import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.pagination.PatientCursor;
 import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.uniqueness.EmailBloomFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 @Service
 public class PatientService {
     private static final Logger log = LoggerFactory.getLogger(PatientService.class);
+    private static final String PATIENTS_CACHE = "patients";
     private final PatientRepository patientRepository;
     private final BillingServiceGrpcClient billingServiceGrpcClient;
-    private final KafkaProducer kafkaProducer;
+    private final EventOutbox eventOutbox;
+    private final PatientSearchIndex patientSearchIndex;
+    private final CacheGenerations cacheGenerations;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailBloomFilter emailBloomFilter;
 
 
-    public PatientService(PatientRepository patientRepository, BillingServiceGrpcClient billingServiceGrpcClient, KafkaProducer kafkaProducer) {
+    public PatientService(PatientRepository patientRepository, BillingServiceGrpcClient billingServiceGrpcClient, EventOutbox eventOutbox, PatientSearchIndex patientSearchIndex, CacheGenerations cacheGenerations, TransactionTemplate transactionTemplate, EmailBloomFilter emailBloomFilter) {
         this.patientRepository = patientRepository;
         this.billingServiceGrpcClient = billingServiceGrpcClient;
-        this.kafkaProducer = kafkaProducer;
+        this.eventOutbox = eventOutbox;
+        this.patientSearchIndex = patientSearchIndex;
+        this.cacheGenerations = cacheGenerations;
+        this.transactionTemplate = transactionTemplate;
+        this.emailBloomFilter = emailBloomFilter;
     }
 
     @Cacheable(
-            value = "patients",
-            key = "#page + '-' + #size + '-' + #sortDirection + '-' + #sortField",
+            value = PATIENTS_CACHE,
+            key = "@cacheGenerations.current('patients') + ':' + #page + '-' + #size + '-' + #sortDirection + '-' + #sortField",
             condition = "#searchValue == ''"
     )
     public PagedPatientResponseDTO getPatients(int page, int size, String sortDirection, String sortField, String searchValue) {
@@ -53,7 +72,7 @@ public class PatientService {
 
         Page<Patient> patientPage;
         if (searchValue != null && !searchValue.isBlank()) {
-            patientPage = patientRepository.findByNameContainingIgnoreCase(searchValue, pageable);
+            patientPage = patientSearchIndex.search(searchValue, PageRequest.of(page - 1, size));
         } else {
             patientPage = patientRepository.findAll(pageable);
         }
@@ -71,14 +90,79 @@ public class PatientService {
         );
     }
 
+    /**
+     * Strong ETag for a patients list response. Every write bumps the patients cache generation, so
+     * the generation serves as a table-level change stamp: the same query under the same generation
+     * always renders the same page. Generations are never reused, even after the Redis key is lost
+     * (see {@link CacheGenerations}). ETags are only compared for the same URL, so the query is not
+     * part of it. Computing it needs no database access.
+     *
+     * @return the ETag, or null while the generation cannot be trusted to have moved with the data
+     */
+    public String getPatientsETag() {
+        OptionalLong generation = cacheGenerations.verified(PATIENTS_CACHE);
+        if (generation.isEmpty()) {
+            return null;
+        }
+        return "patients-" + generation.getAsLong();
+    }
+
+    public PagedPatientResponseDTO getPatientsByCursor(String cursor, int size, String sortDirection) {
+        boolean ascending = sortDirection.equalsIgnoreCase("asc");
+        // fetch one extra row to learn whether another page exists without running a count query
+        int limit = size + 1;
+
+        List<Patient> patients;
+        if (cursor == null || cursor.isBlank()) {
+            patients = ascending
+                    ? patientRepository.findFirstByNameAsc(limit)
+                    : patientRepository.findFirstByNameDesc(limit);
+        } else {
+            PatientCursor after = PatientCursor.decode(cursor);
+            if (after.ascending() != ascending) {
+                throw new InvalidCursorException("Cursor was issued for the other sort direction");
+            }
+            patients = ascending
+                    ? patientRepository.findAfterByNameAsc(after.name(), after.id(), limit)
+                    : patientRepository.findAfterByNameDesc(after.name(), after.id(), limit);
+        }
+
+        boolean hasNext = patients.size() > size;
+        List<Patient> pageContent = hasNext ? patients.subList(0, size) : patients;
+        String nextCursor = hasNext ? PatientCursor.of(pageContent.get(size - 1), ascending).encode() : null;
+
+        List<PatientResponseDTO> patientResponseDTOS = pageContent
+                .stream()
+                .map(PatientMapper::toDTO)
+                .toList();
+        return new PagedPatientResponseDTO(patientResponseDTOS, size, nextCursor);
+    }
+
     public PatientResponseDTO createPatient(PatientRequestDTO patientRequestDTO) {
-        if (patientRepository.existsByEmail(patientRequestDTO.getEmail())) {
+        // most emails are new, so the existence query only runs on a possible filter hit
+        if (emailBloomFilter.mightContain(patientRequestDTO.getEmail())) {
+            if (patientRepository.existsByEmail(patientRequestDTO.getEmail())) {
+                throw new EmailAlreadyExistsException("A patient with the same email address already exists " + patientRequestDTO.getEmail());
+            }
+            emailBloomFilter.recordFalsePositive();
+        }
+        // the PatientCreated event is committed with the patient and published by the OutboxRelay
+        Patient newPatient;
+        try {
+            newPatient = transactionTemplate.execute(status -> {
+                Patient savedPatient = patientRepository.save(PatientMapper.toModel(patientRequestDTO));
+                eventOutbox.enqueuePatientCreated(savedPatient);
+                return savedPatient;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // the unique email constraint catches what the filter missed or a concurrent create
             throw new EmailAlreadyExistsException("A patient with the same email address already exists " + patientRequestDTO.getEmail());
         }
-        Patient newPatient = patientRepository.save(PatientMapper.toModel(patientRequestDTO));
-        billingServiceGrpcClient.createBillingAccount(newPatient.getId().toString(), newPatient.getName(), newPatient.getEmail());
-
-        kafkaProducer.sendEvent(newPatient);
+        emailBloomFilter.add(newPatient.getEmail());
+        patientSearchIndex.index(newPatient);
+        cacheGenerations.bump(PATIENTS_CACHE);
+        // the patient is already committed; billing completes in the background and falls back to Kafka
+        billingServiceGrpcClient.createBillingAccountAsync(newPatient.getId().toString(), newPatient.getName(), newPatient.getEmail());
 
         return PatientMapper.toDTO(newPatient);
     }
@@ -90,16 +174,68 @@ public class PatientService {
             throw new EmailAlreadyExistsException("A patient with the same email address already exists " + patientRequestDTO.getEmail());
         }
 
+        String previousEmail = patient.getEmail();
         patient.setName(patientRequestDTO.getName());
         patient.setAddress(patientRequestDTO.getAddress());
         patient.setEmail(patientRequestDTO.getEmail());
         patient.setDateOfBirth(LocalDate.parse(patientRequestDTO.getDateOfBirth()));
 
         Patient updatedPatient = patientRepository.save(patient);
+        if (!previousEmail.equals(updatedPatient.getEmail())) {
+            emailBloomFilter.add(updatedPatient.getEmail());
+            emailBloomFilter.remove(previousEmail);
+        }
+        patientSearchIndex.index(updatedPatient);
+        cacheGenerations.bump(PATIENTS_CACHE);
         return PatientMapper.toDTO(updatedPatient);
     }
 
+    /**
+     * Applies the non-null fields of the request in a single UPDATE. The unique email constraint
+     * replaces the duplicate-email pre-check, and the patient is only read again when nothing was
+     * updated, to tell a missing patient from a stale version.
+     *
+     * @return the patient's new version
+     */
+    public long patchPatient(UUID id, PatientPatchRequestDTO patientPatchRequestDTO) {
+        int updated;
+        try {
+            updated = transactionTemplate.execute(status -> patientRepository.patch(
+                    id,
+                    patientPatchRequestDTO.getVersion(),
+                    patientPatchRequestDTO.getName(),
+                    patientPatchRequestDTO.getEmail(),
+                    patientPatchRequestDTO.getAddress(),
+                    patientPatchRequestDTO.getDateOfBirth() == null ? null : LocalDate.parse(patientPatchRequestDTO.getDateOfBirth())));
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailAlreadyExistsException("A patient with the same email address already exists " + patientPatchRequestDTO.getEmail());
+        }
+
+        if (updated > 0 && patientPatchRequestDTO.getEmail() != null) {
+            // the previous email is not known without a read; it stays in the filter as a false positive until the next rebuild
+            emailBloomFilter.add(patientPatchRequestDTO.getEmail());
+        }
+        if (updated == 0) {
+            if (!patientRepository.existsById(id)) {
+                throw new PatientNotFoundException("Patient not found with id: " + id);
+            }
+            throw new PatientVersionConflictException("Patient " + id + " is no longer at version " + patientPatchRequestDTO.getVersion());
+        }
+
+        if (patientPatchRequestDTO.getName() != null || patientPatchRequestDTO.getEmail() != null || patientPatchRequestDTO.getAddress() != null) {
+            patientSearchIndex.reindex(id);
+        }
+        cacheGenerations.bump(PATIENTS_CACHE);
+        return patientPatchRequestDTO.getVersion() + 1;
+    }
+
     public void deletePatient(UUID id) {
-        patientRepository.deleteById(id);
+        // deleteById loads the entity anyway; loading it here keeps its email for the filter
+        patientRepository.findById(id).ifPresent(patient -> {
+            patientRepository.delete(patient);
+            emailBloomFilter.remove(patient.getEmail());
+        });
+        patientSearchIndex.remove(id);
+        cacheGenerations.bump(PATIENTS_CACHE);
     }
 }
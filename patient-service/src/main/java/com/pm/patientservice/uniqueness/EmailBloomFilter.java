@@ -0,0 +1,232 @@
+package com.pm.patientservice.uniqueness;
+
+import com.pm.patientservice.repository.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter over patient emails, used to skip the {@code existsByEmail} query for
+ * emails that are definitely new. Counters are 4 bits, 16 per long, updated with CAS, so emails can
+ * be removed again; a counter that reaches 15 stays there.
+ * <p>
+ * The filter is sized for {@code patient.email-filter.headroom} times the rows in the table at
+ * build time and rebuilt when the estimated false-positive rate exceeds twice
+ * {@code patient.email-filter.fpp}. Until the first build finishes every email is a possible hit.
+ * Callers skip the lookup on a negative, so a negative must not be wrong: removals are skipped for
+ * emails the filter has definitely not seen, and are not applied to a filter being built, whose
+ * scan may or may not include the removed row. Both only leave extra counts, i.e. false positives.
+ * The unique email constraint still backs every insert in case a negative is wrong anyway.
+ */
+@Component
+public class EmailBloomFilter {
+    private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private final PatientRepository patientRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double targetFpp;
+    private final double headroom;
+    private final long minimumCapacity;
+    private final Counter definitelyNew;
+    private final Counter possiblyPresent;
+    private final Counter falsePositives;
+    private volatile Filter current;
+    // while rebuilding, writes go to both filters
+    private volatile Filter next;
+
+    public EmailBloomFilter(PatientRepository patientRepository,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${patient.email-filter.fpp:0.01}") double targetFpp,
+                            @Value("${patient.email-filter.headroom:2.0}") double headroom,
+                            @Value("${patient.email-filter.minimum-capacity:100000}") long minimumCapacity) {
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.targetFpp = targetFpp;
+        this.headroom = headroom;
+        this.minimumCapacity = minimumCapacity;
+        this.definitelyNew = meterRegistry.counter("patient.email.filter.checks", "result", "definitely-new");
+        this.possiblyPresent = meterRegistry.counter("patient.email.filter.checks", "result", "possibly-present");
+        this.falsePositives = meterRegistry.counter("patient.email.filter.false.positives");
+        meterRegistry.gauge("patient.email.filter.fpp.estimated", this, filter -> {
+            Filter built = filter.current;
+            return built == null ? 1.0 : built.estimatedFpp();
+        });
+        meterRegistry.gauge("patient.email.filter.fpp.observed", this, EmailBloomFilter::observedFpp);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long rows = patientRepository.count();
+        Filter filter = new Filter(Math.max(minimumCapacity, (long) (rows * headroom)), targetFpp);
+        next = filter;
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT email FROM patient");
+            statement.setFetchSize(10_000);
+            return statement;
+        }, resultSet -> {
+            filter.add(resultSet.getString(1));
+        }));
+        current = filter;
+        next = null;
+        log.info("Built patient email filter: {} emails, {} counters, {} hashes", filter.size(), filter.counters, filter.hashes);
+    }
+
+    @Scheduled(fixedDelayString = "${patient.email-filter.check-interval-ms:60000}")
+    public void rebuildIfSaturated() {
+        Filter filter = current;
+        if (filter != null && next == null && filter.estimatedFpp() > 2 * targetFpp) {
+            log.info("Patient email filter estimated false-positive rate is {}, rebuilding", filter.estimatedFpp());
+            build();
+        }
+    }
+
+    /**
+     * @return false only if no patient has this email
+     */
+    public boolean mightContain(String email) {
+        Filter filter = current;
+        boolean possible = filter == null || filter.mightContain(email);
+        (possible ? possiblyPresent : definitelyNew).increment();
+        return possible;
+    }
+
+    /**
+     * Records that the database had no patient with an email the filter reported as possible.
+     */
+    public void recordFalsePositive() {
+        if (current != null) {
+            falsePositives.increment();
+        }
+    }
+
+    public void add(String email) {
+        apply(email, true);
+    }
+
+    public void remove(String email) {
+        apply(email, false);
+    }
+
+    private void apply(String email, boolean add) {
+        Filter building = next;
+        Filter filter = current;
+        if (building != null && add) {
+            building.update(email, true);
+        }
+        if (filter != null && filter != building) {
+            filter.update(email, add);
+        }
+    }
+
+    private double observedFpp() {
+        double positives = falsePositives.count();
+        double negatives = positives + definitelyNew.count();
+        return negatives == 0 ? 0 : positives / negatives;
+    }
+
+    private static final class Filter {
+        private static final int COUNTERS_PER_WORD = 16;
+        private static final long MAX_COUNT = 15;
+
+        private final AtomicLongArray words;
+        private final long counters;
+        private final int hashes;
+        private final AtomicLong size = new AtomicLong();
+
+        Filter(long capacity, double fpp) {
+            long bits = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (bits + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+            this.counters = (long) words.length() * COUNTERS_PER_WORD;
+            this.hashes = Math.max(1, (int) Math.round((double) counters / capacity * Math.log(2)));
+        }
+
+        long size() {
+            return size.get();
+        }
+
+        void add(String email) {
+            update(email, true);
+        }
+
+        boolean mightContain(String email) {
+            long hash = hash64(email);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % counters;
+                if (counter(words.get((int) (index / COUNTERS_PER_WORD)), index) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void update(String email, boolean add) {
+            // decrementing for an email that was never added would zero counters of other emails
+            if (!add && !mightContain(email)) {
+                return;
+            }
+            long hash = hash64(email);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % counters;
+                int word = (int) (index / COUNTERS_PER_WORD);
+                int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+                while (true) {
+                    long value = words.get(word);
+                    long count = (value >>> shift) & MAX_COUNT;
+                    // saturated counters are sticky; empty ones cannot go below zero
+                    if (count == MAX_COUNT || (!add && count == 0)) {
+                        break;
+                    }
+                    long updated = add ? value + (1L << shift) : value - (1L << shift);
+                    if (words.compareAndSet(word, value, updated)) {
+                        break;
+                    }
+                }
+            }
+            size.addAndGet(add ? 1 : -1);
+        }
+
+        private static long counter(long word, long index) {
+            return (word >>> ((index % COUNTERS_PER_WORD) * 4)) & MAX_COUNT;
+        }
+
+        // (1 - e^(-kn/m))^k
+        double estimatedFpp() {
+            return Math.pow(1 - Math.exp(-(double) hashes * Math.max(0, size.get()) / counters), hashes);
+        }
+
+        // FNV-1a over the UTF-8 bytes, finished with the splitmix64 mixer
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 30;
+            hash *= 0xbf58476d1ce4e5b9L;
+            hash ^= hash >>> 27;
+            hash *= 0x94d049bb133111ebL;
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
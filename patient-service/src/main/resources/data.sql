@@ -6,9 +6,13 @@ CREATE TABLE IF NOT EXISTS patient
     email           VARCHAR(255) UNIQUE NOT NULL,
     address         VARCHAR(255)        NOT NULL,
     date_of_birth   DATE                NOT NULL,
-    registered_date DATE                NOT NULL
+    registered_date DATE                NOT NULL,
+    version         BIGINT DEFAULT 0    NOT NULL
     );
 
+-- Optimistic-lock version for tables created before the column existed
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
 -- Insert well-known UUIDs for specific patients
 INSERT INTO patient (id, name, email, address, date_of_birth, registered_date)
 SELECT '123e4567-e89b-12d3-a456-426614174000',
@@ -154,4 +158,7 @@ SELECT '223e4567-e89b-12d3-a456-426614174014',
        '789 Willow St, Springfield',
        '1987-10-17',
        '2024-03-29'
-    WHERE NOT EXISTS (SELECT 1 FROM patient WHERE id = '223e4567-e89b-12d3-a456-426614174014');
\ No newline at end of file
+    WHERE NOT EXISTS (SELECT 1 FROM patient WHERE id = '223e4567-e89b-12d3-a456-426614174014');
+
+-- Composite index backing keyset pagination on (name, id)
+CREATE INDEX IF NOT EXISTS idx_patient_name_id ON patient (name, id);
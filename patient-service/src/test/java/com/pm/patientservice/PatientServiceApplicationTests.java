@@ -3,7 +3,7 @@ package com.pm.patientservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "patient.search.engine=memory")
 class PatientServiceApplicationTests {
 
 	@Test
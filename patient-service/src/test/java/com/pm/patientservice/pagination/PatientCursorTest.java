@@ -0,0 +1,80 @@
+package com.pm.patientservice.pagination;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PatientCursorTest {
+    private static final UUID ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void roundTripsBothDirections() {
+        PatientCursor ascending = new PatientCursor(true, "Jane Doe", ID);
+        PatientCursor descending = new PatientCursor(false, "Jane Doe", ID);
+
+        assertThat(PatientCursor.decode(ascending.encode())).isEqualTo(ascending);
+        assertThat(PatientCursor.decode(descending.encode())).isEqualTo(descending);
+        assertThat(ascending.encode()).isNotEqualTo(descending.encode());
+    }
+
+    @Test
+    void roundTripsNamesWithSeparatorsAndNonAsciiCharacters() {
+        PatientCursor cursor = new PatientCursor(true, "Zoë: O'Brien-Łukasz", ID);
+
+        assertThat(PatientCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripsEmptyName() {
+        PatientCursor cursor = new PatientCursor(false, "", ID);
+
+        assertThat(PatientCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void encodesUrlSafely() {
+        String encoded = new PatientCursor(true, "???>>>", ID).encode();
+
+        assertThat(encoded).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void rejectsInvalidBase64() {
+        assertThatThrownBy(() -> PatientCursor.decode("not base64!"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsUnknownDirection() {
+        assertThatThrownBy(() -> PatientCursor.decode(encodeRaw("x:" + ID + ":Jane")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsMissingSeparators() {
+        assertThatThrownBy(() -> PatientCursor.decode(encodeRaw("a" + ID + "Jane")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> PatientCursor.decode(encodeRaw("a:" + ID)))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> PatientCursor.decode(encodeRaw("a")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> PatientCursor.decode(""))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsMalformedId() {
+        assertThatThrownBy(() -> PatientCursor.decode(encodeRaw("a:not-a-uuid:Jane")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
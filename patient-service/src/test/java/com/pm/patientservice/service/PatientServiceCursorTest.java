@@ -0,0 +1,100 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.cache.CacheGenerations;
+import com.pm.patientservice.dto.PagedPatientResponseDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.InvalidCursorException;
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.kafka.EventOutbox;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.pagination.PatientCursor;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.uniqueness.EmailBloomFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PatientServiceCursorTest {
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final PatientService patientService = new PatientService(patientRepository,
+            mock(BillingServiceGrpcClient.class), mock(EventOutbox.class), mock(PatientSearchIndex.class),
+            mock(CacheGenerations.class), mock(TransactionTemplate.class), mock(EmailBloomFilter.class));
+
+    private static Patient patient(String name) {
+        Patient patient = new Patient();
+        patient.setId(UUID.randomUUID());
+        patient.setName(name);
+        patient.setEmail(name.toLowerCase() + "@example.com");
+        patient.setAddress("1 Main Street");
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        return patient;
+    }
+
+    @Test
+    void firstPageFetchesOneExtraRowAndPointsAtTheLastReturnedRow() {
+        Patient ann = patient("Ann");
+        Patient bob = patient("Bob");
+        Patient cat = patient("Cat");
+        when(patientRepository.findFirstByNameAsc(3)).thenReturn(List.of(ann, bob, cat));
+
+        PagedPatientResponseDTO page = patientService.getPatientsByCursor(null, 2, "asc");
+
+        assertThat(page.getPatients()).extracting(PatientResponseDTO::getName).containsExactly("Ann", "Bob");
+        assertThat(PatientCursor.decode(page.getNextCursor())).isEqualTo(new PatientCursor(true, "Bob", bob.getId()));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        Patient ann = patient("Ann");
+        when(patientRepository.findFirstByNameDesc(3)).thenReturn(List.of(ann));
+
+        PagedPatientResponseDTO page = patientService.getPatientsByCursor("", 2, "desc");
+
+        assertThat(page.getPatients()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void nextPageSeeksAfterTheCursorPosition() {
+        Patient bob = patient("Bob");
+        Patient cat = patient("Cat");
+        Patient dan = patient("Dan");
+        String cursor = new PatientCursor(false, "Eve", bob.getId()).encode();
+        when(patientRepository.findAfterByNameDesc("Eve", bob.getId(), 3)).thenReturn(List.of(dan, cat, bob));
+
+        PagedPatientResponseDTO page = patientService.getPatientsByCursor(cursor, 2, "desc");
+
+        assertThat(page.getPatients()).extracting(PatientResponseDTO::getName).containsExactly("Dan", "Cat");
+        assertThat(PatientCursor.decode(page.getNextCursor())).isEqualTo(new PatientCursor(false, "Cat", cat.getId()));
+    }
+
+    @Test
+    void rejectsCursorIssuedForTheOtherDirection() {
+        String cursor = new PatientCursor(true, "Bob", UUID.randomUUID()).encode();
+
+        assertThatThrownBy(() -> patientService.getPatientsByCursor(cursor, 2, "desc"))
+                .isInstanceOf(InvalidCursorException.class);
+        verify(patientRepository, never()).findAfterByNameDesc(any(), any(), anyInt());
+    }
+
+    @Test
+    void rejectsMalformedCursorWithoutQuerying() {
+        assertThatThrownBy(() -> patientService.getPatientsByCursor("%%%", 2, "asc"))
+                .isInstanceOf(InvalidCursorException.class);
+        verifyNoInteractions(patientRepository);
+    }
+}
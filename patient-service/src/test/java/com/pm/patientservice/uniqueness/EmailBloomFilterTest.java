@@ -0,0 +1,163 @@
+package com.pm.patientservice.uniqueness;
+
+import com.pm.patientservice.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailBloomFilterTest {
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    private EmailBloomFilter filter(long minimumCapacity) {
+        return new EmailBloomFilter(patientRepository, jdbcTemplate, transactionTemplate, new SimpleMeterRegistry(),
+                0.01, 2.0, minimumCapacity);
+    }
+
+    /**
+     * Makes the build scan return {@code emails}, calling {@code beforeRow} with the row index
+     * before each row is handed to the filter.
+     */
+    private void table(List<String> emails, BiConsumer<Integer, String> beforeRow) throws Exception {
+        when(patientRepository.count()).thenReturn((long) emails.size());
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < emails.size(); i++) {
+                beforeRow.accept(i, emails.get(i));
+                ResultSet row = mock(ResultSet.class);
+                when(row.getString(1)).thenReturn(emails.get(i));
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static List<String> emails(String prefix, int count) {
+        List<String> emails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            emails.add(prefix + i + "@example.com");
+        }
+        return emails;
+    }
+
+    @Test
+    void everyEmailIsPossibleBeforeTheFirstBuild() {
+        EmailBloomFilter filter = filter(1000);
+
+        assertThat(filter.mightContain("new@example.com")).isTrue();
+    }
+
+    @Test
+    void noFalseNegativesAfterAddsAndRemoves() throws Exception {
+        table(List.of(), (index, email) -> {
+        });
+        // an overfull filter, so many emails share counters
+        EmailBloomFilter filter = filter(1000);
+        filter.build();
+        List<String> emails = emails("patient", 5000);
+        emails.forEach(filter::add);
+
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < emails.size(); i++) {
+            if (i % 2 == 0) {
+                filter.remove(emails.get(i));
+            } else {
+                kept.add(emails.get(i));
+            }
+        }
+
+        assertThat(kept).allSatisfy(email -> assertThat(filter.mightContain(email)).isTrue());
+    }
+
+    @Test
+    void removedEmailIsNoLongerReported() throws Exception {
+        table(List.of("a@example.com", "b@example.com"), (index, email) -> {
+        });
+        EmailBloomFilter filter = filter(100_000);
+        filter.build();
+
+        filter.remove("a@example.com");
+
+        assertThat(filter.mightContain("a@example.com")).isFalse();
+        assertThat(filter.mightContain("b@example.com")).isTrue();
+    }
+
+    @Test
+    void removalDuringRebuildLeavesNoFalseNegatives() throws Exception {
+        List<String> stored = emails("stored", 1000);
+        table(stored, (index, email) -> {
+        });
+        EmailBloomFilter filter = filter(1000);
+        filter.build();
+
+        // the rebuild reads every row, but each is removed and added again by concurrent writes
+        // just before the scan reaches it, and a new patient is created half way
+        table(stored, (index, email) -> {
+            filter.remove(email);
+            filter.add(email);
+            if (index == stored.size() / 2) {
+                filter.add("created@example.com");
+            }
+        });
+        filter.build();
+
+        assertThat(stored).allSatisfy(email -> assertThat(filter.mightContain(email)).isTrue());
+        assertThat(filter.mightContain("created@example.com")).isTrue();
+    }
+
+    @Test
+    void removalOfARowTheRebuildDoesNotSeeKeepsOtherEmails() throws Exception {
+        List<String> stored = emails("stored", 1000);
+        table(stored, (index, email) -> {
+        });
+        EmailBloomFilter filter = filter(1000);
+        filter.build();
+
+        // the first patient is deleted while the rebuild runs, after its snapshot was taken
+        List<String> remaining = stored.subList(1, stored.size());
+        table(remaining, (index, email) -> {
+            if (index == 0) {
+                filter.remove(stored.getFirst());
+            }
+        });
+        filter.build();
+
+        assertThat(remaining).allSatisfy(email -> assertThat(filter.mightContain(email)).isTrue());
+    }
+
+    @Test
+    void saturatedCountersStaySet() throws Exception {
+        table(List.of(), (index, email) -> {
+        });
+        EmailBloomFilter filter = filter(100_000);
+        filter.build();
+
+        // 4-bit counters saturate at 15; removals must not bring them back to zero
+        for (int i = 0; i < 20; i++) {
+            filter.add("frequent@example.com");
+        }
+        for (int i = 0; i < 20; i++) {
+            filter.remove("frequent@example.com");
+        }
+
+        assertThat(filter.mightContain("frequent@example.com")).isTrue();
+        // a saturated counter does not carry into its neighbours
+        assertThat(filter.mightContain("other@example.com")).isFalse();
+    }
+}